@@ -28,6 +28,8 @@ import decolib.signals.SignalType;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 /**
  * Represents a blanket. Provides methods allowing for performing basic operation on blankets.
@@ -56,15 +58,23 @@ public class Blanket
     {
       Blanket result = Blanket.empty();
 
+      int[] terms = new int[16];  // Terms of the block are collected first, so the block storage may be allocated once.
+
       Matcher blanketBlockMatcher = blanketBlockPattern.matcher(str.trim());
       while(blanketBlockMatcher.find())
       {
         Block block = new Block(blanketBlockMatcher.group(2) != null ? blanketBlockMatcher.group(2).trim() : "");
         if(blanketBlockMatcher.group(3) != null)
         {
+          int termsCnt = 0;
           Matcher blanketBlockTermsMatcher = blanketBlockTermsPattern.matcher(blanketBlockMatcher.group(3));
           while(blanketBlockTermsMatcher.find())
-            block.setTerm(Integer.parseInt(blanketBlockTermsMatcher.group(1)));
+          {
+            if(termsCnt == terms.length) terms = Arrays.copyOf(terms, terms.length * 2);
+            terms[termsCnt++] = Integer.parseInt(blanketBlockTermsMatcher.group(1));
+          }
+
+          block.setTerms(terms, termsCnt);
 
           if(block.rank > 0) result.addBlock(block);
         }
@@ -188,6 +198,87 @@ public class Blanket
     addTerms(blockName, Arrays.asList(terms));
   }
 
+  /**
+   * Method (version 3) adds terms to this blanket, without boxing of the terms.
+   *
+   * @param blockName a name of block to which the terms should be added
+   * @param terms an array of terms
+   */
+  public void addTerms(String blockName, int[] terms)
+  {
+    if(terms != null && terms.length > 0)
+    {
+      for(Block block : blocks)
+        if(block.name.equals(blockName)) block.setTerms(terms);
+    }
+  }
+
+  /**
+   * Method (version 4) adds terms to this blanket, without boxing of the terms.
+   *
+   * @param blockName a name of block to which the terms should be added
+   * @param terms a stream of terms
+   */
+  public void addTerms(String blockName, IntStream terms)
+  {
+    if(terms != null) addTerms(blockName, terms.toArray());
+  }
+
+  /**
+   * Method (version 5) adds terms to this blanket, without boxing of the terms. When there is only one block with the given name,
+   * the terms are passed directly from the iterator to the block.
+   *
+   * @param blockName a name of block to which the terms should be added
+   * @param terms an iterator over terms
+   */
+  public void addTerms(String blockName, PrimitiveIterator.OfInt terms)
+  {
+    if(terms != null)
+    {
+      Block namedBlock = null;
+      for(Block block : blocks)
+      {
+        if(block.name.equals(blockName))
+        {
+          if(namedBlock != null)
+          {
+            // More blocks have the same name, thus the terms should be read only once.
+            addTerms(blockName, StreamSupport.intStream(Spliterators.spliteratorUnknownSize(terms, Spliterator.ORDERED), false));
+            return;
+          }
+
+          namedBlock = block;
+        }
+      }
+
+      if(namedBlock != null) namedBlock.setTerms(terms);
+    }
+  }
+
+  /**
+   * Method adds one term to this blanket.
+   *
+   * @param blockName a name of block to which the term should be added
+   * @param term a term
+   */
+  public void addTerm(String blockName, int term)
+  {
+    for(Block block : blocks)
+      if(block.name.equals(blockName)) block.setTerm(term);
+  }
+
+  /**
+   * Method returns terms of the block with a given name.
+   *
+   * @param blockName a name of block
+   * @return terms, in increasing order, or null if there is no such block
+   */
+  public int[] getTerms(String blockName)
+  {
+    Block block = getBlock(blockName);
+    return block != null ? block.getTerms() : null;
+  }
+
   /**
    * Method returns list of blocks, owned by the blanket.
    *
@@ -405,14 +496,13 @@ public class Blanket
     int checked = 0;
     nextBlock: for(Block block : blocks)
     {
-      nextOtherBlock: for(Block otherBlock : other.blocks)
+      for(Block otherBlock : other.blocks)
       {
-        if(block.data.length > otherBlock.data.length) continue;
-        for(int i = 0; i < block.data.length; i++)
-          if((block.data[i] & otherBlock.data[i]) != block.data[i]) continue nextOtherBlock;
-
-        checked++;
-        continue nextBlock;
+        if(block.getBlockLe(otherBlock))
+        {
+          checked++;
+          continue nextBlock;
+        }
       }
     }
 
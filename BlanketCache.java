@@ -0,0 +1,103 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions;
+
+import decolib.blankets.Blanket;
+import decolib.blankets.Block;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches products of blankets and caches of covers of blocks (CompatibilityCache) for many decompositions, which use the same
+ * input blankets, like requests of the batch of decompositions. Blankets are identified by terms of their blocks (fingerprints),
+ * thus equal blankets given as different objects share the entries. The cache may be used by many threads.
+ */
+final class BlanketCache
+{
+  private static final int MAX_ENTRIES = 1 << 12;  // Maximal number of stored entries of each kind, the cache is cleared when it is exceeded.
+
+  private final Map<List<Object>, Blanket> products = new ConcurrentHashMap<>();
+  private final Map<List<Object>, CompatibilityCache> compatibilityCaches = new ConcurrentHashMap<>();
+
+  /**
+   * Method computes the product of blankets A and B, or returns the copy of the stored one.
+   *
+   * @param A the blanket (A), the first argument of the operation
+   * @param B the blanket (B), the second argument of the operation
+   * @param sort if true, the blocks of resulting blanket will be sorted (with regard to minimal value of terms)
+   * @return R = A x B
+   */
+  Blanket BxB(Blanket A, Blanket B, boolean sort)
+  {
+    List<Object> key = getFingerprint(A);
+    key.add(null);
+    key.addAll(getFingerprint(B));
+    key.add(sort);
+
+    Blanket product = products.get(key);
+    if(product == null)
+    {
+      product = A.BxB(B, sort);
+      if(product == null) return null;
+
+      if(products.size() >= MAX_ENTRIES) products.clear();
+      products.putIfAbsent(key, product);
+    }
+
+    // The copy keeps the order of blocks, as the product may be unsorted.
+    Blanket result = Blanket.empty();
+    for(Block block : product.getBlocks()) result.getBlocks().add(Block.copyBlock(block));
+    return result;
+  }
+
+  /**
+   * Method returns the cache of covers of blocks for the given blanket F.
+   *
+   * @param F blanket, which should not be changed while the cache is used
+   * @return cache
+   */
+  CompatibilityCache getCompatibilityCache(Blanket F)
+  {
+    List<Object> key = getFingerprint(F);
+    CompatibilityCache cache = compatibilityCaches.get(key);
+    if(cache == null)
+    {
+      cache = CompatibilityCache.create(F);
+      if(compatibilityCaches.size() >= MAX_ENTRIES) compatibilityCaches.clear();
+      CompatibilityCache storedCache = compatibilityCaches.putIfAbsent(key, cache);
+      if(storedCache != null) cache = storedCache;
+    }
+
+    return cache;
+  }
+
+  // Fingerprint of the blanket: terms of its blocks, in the order of blocks.
+  private static List<Object> getFingerprint(Blanket blanket)
+  {
+    List<Object> fingerprint = new ArrayList<>();
+    for(Block block : blanket.getBlocks()) fingerprint.add(new BlockKey(block));
+    return fingerprint;
+  }
+}
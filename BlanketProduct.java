@@ -0,0 +1,174 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.blankets;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the product A x B' of blanket A and blanket B', which differs from the given blanket B by one block only: the last block
+ * of blanket B is replaced, or a new block is added. Products of blocks of A with the unchanged blocks of B (and relations between
+ * them) are computed once, thus for each blanket B' only the products with the changed block are computed. The result is the same
+ * as the result of method Blanket.BxB(), including names and order of blocks.
+ */
+public class BlanketProduct
+{
+  private final Blanket A;
+  private final int aCount;
+  private final boolean replaceLast;
+  private final List<Block> bBlocks;
+  private final List<Block> products = new ArrayList<>();  // Different products of blocks of A and unchanged blocks of B.
+  private final List<Integer> rows = new ArrayList<>();    // rows[p] = position of the block of B for the first occurrence of product p.
+  private final List<Integer> keys = new ArrayList<>();    // keys[p] = position of product p in the list of products computed by Blanket.BxB().
+  private final Map<Block, Integer> positions = new HashMap<>();
+  private final boolean[] dominated;                       // dominated[p] = true, if product p is included in other product of unchanged blocks.
+
+  private BlanketProduct(Blanket A, Blanket B, boolean replaceLast)
+  {
+    this.A = A;
+    this.aCount = A.getBlocksCount();
+    this.replaceLast = replaceLast;
+    this.bBlocks = B.getBlocks();
+
+    int unchanged = replaceLast ? bBlocks.size() - 1 : bBlocks.size();
+    List<Block> aBlocks = A.getBlocks();
+    for(int r = 0; r < unchanged; r++)
+    {
+      for(int a = 0; a < aBlocks.size(); a++)
+      {
+        Block b = aBlocks.get(a).getBlockMul(bBlocks.get(r));
+        if(!b.isEmpty() && !positions.containsKey(b))
+        {
+          positions.put(b, products.size());
+          products.add(b);
+          rows.add(r);
+          keys.add(r * aCount + a);
+        }
+      }
+    }
+
+    dominated = new boolean[products.size()];
+    for(int p = 0; p < products.size(); p++)
+      for(int q = 0; q < products.size() && !dominated[p]; q++)
+        if(p != q && products.get(p).getBlockLe(products.get(q))) dominated[p] = true;
+  }
+
+  /**
+   * Method prepares the computation of products A x B', where blanket B' differs from blanket B by one block. Blocks of blanket B
+   * should be sorted with regard to minimal value of terms (as in the copy of blanket B).
+   *
+   * @param A the blanket (A), the first argument of the operation
+   * @param B the blanket (B), which is changed by one block
+   * @param replaceLast if true, the last block of B is replaced, otherwise a new block is added to B
+   * @return object computing the products
+   */
+  public static BlanketProduct create(Blanket A, Blanket B, boolean replaceLast)
+  {
+    return new BlanketProduct(A, B, replaceLast);
+  }
+
+  /**
+   * Method computes the product of blanket A and blanket B', where B' is the copy of blanket B with the last block replaced by the given
+   * block, or with the given block added (as by Blanket.addBlock(Block)).
+   *
+   * @param block the changed block of blanket B'
+   * @return R = A x B'
+   */
+  public Blanket BxB(Block block)
+  {
+    // Position of the changed block in blanket B'. The added block is placed after blocks having the same minimal term (the sorting is stable).
+    int row = bBlocks.size() - 1;
+    if(!replaceLast)
+    {
+      row = 0;
+      while(row < bBlocks.size() && bBlocks.get(row).minTerm <= block.minTerm) row++;
+    }
+
+    // Products of blocks of A with the changed block, which are not products of unchanged blocks.
+    List<Block> newProducts = new ArrayList<>();
+    List<Integer> newKeys = new ArrayList<>();
+    Map<Integer, Integer> changedKeys = new HashMap<>();  // New positions of products of unchanged blocks, also computed for the changed block.
+    List<Block> aBlocks = A.getBlocks();
+    for(int a = 0; a < aBlocks.size(); a++)
+    {
+      Block b = aBlocks.get(a).getBlockMul(block);
+      if(b.isEmpty() || newProducts.contains(b)) continue;
+
+      int key = row * aCount + a;
+      Integer p = positions.get(b);
+      if(p != null)
+      {
+        if(rows.get(p) >= row) changedKeys.putIfAbsent(p, key);  // The product of the changed block occurs earlier than the product of unchanged one.
+      }
+      else
+      {
+        newProducts.add(b);
+        newKeys.add(key);
+      }
+    }
+
+    // Only products not included in other products are kept (it is the result of packing, as products are different).
+    List<Block> resultBlocks = new ArrayList<>();
+    List<Integer> resultKeys = new ArrayList<>();
+    for(int p = 0; p < products.size(); p++)
+    {
+      if(dominated[p]) continue;
+
+      Block b = products.get(p);
+      boolean included = false;
+      for(int n = 0; n < newProducts.size() && !included; n++) included = b.getBlockLe(newProducts.get(n));
+      if(included) continue;
+
+      resultBlocks.add(b);
+      int key = rows.get(p) >= row && !replaceLast ? keys.get(p) + aCount : keys.get(p);  // Blocks after the added one are moved.
+      resultKeys.add(changedKeys.getOrDefault(p, key));
+    }
+
+    for(int n = 0; n < newProducts.size(); n++)
+    {
+      Block b = newProducts.get(n);
+      boolean included = false;
+      for(int p = 0; p < products.size() && !included; p++) included = b.getBlockLe(products.get(p));
+      for(int m = 0; m < newProducts.size() && !included; m++) included = m != n && b.getBlockLe(newProducts.get(m));
+      if(included) continue;
+
+      resultBlocks.add(b);
+      resultKeys.add(newKeys.get(n));
+    }
+
+    if(resultBlocks.isEmpty()) return null;
+
+    // Order of blocks is the same as for packing and sorting of blocks in Blanket.BxB().
+    List<Integer> order = new ArrayList<>();
+    for(int i = 0; i < resultBlocks.size(); i++) order.add(i);
+    order.sort(Comparator.comparingInt((Integer i) -> resultBlocks.get(i).rank).thenComparingInt(i -> resultBlocks.get(i).minTerm).thenComparingInt(resultKeys::get));
+
+    Blanket resultBlanket = Blanket.empty();
+    for(int i = 0; i < order.size(); i++) resultBlanket.getBlocks().add(Block.copyBlock("B" + (i + 1), resultBlocks.get(order.get(i))));
+    resultBlanket.sortBlocks(false);
+
+    return resultBlanket;
+  }
+}
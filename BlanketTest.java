@@ -4,6 +4,9 @@ import org.fest.assertions.Assertions;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.PrimitiveIterator;
+import java.util.stream.IntStream;
 
 public class BlanketTest
 {
@@ -85,4 +88,148 @@ public class BlanketTest
     Assertions.assertThat(βF.BicB(βA).toString()).isEqualTo("[A1:1,2;, A4:6,7,8;]");  // Incompatible blocks of blanket βA with blanket βF.
     Assertions.assertThat(βF.BicB(βB).toString()).isEqualTo("[]");                    // Incompatible blocks of blanket βB with blanket βF.
   }
+
+  @Test
+  public void blanketOperations_test6()
+  {
+    Blanket β = Blanket.create("A", "B", "C");
+    β.addTerms("A", new int[] {1, 2, 3, 40});
+    β.addTerms("B", IntStream.of(2, 64, 65));
+    β.addTerms("C", IntStream.rangeClosed(30, 34).iterator());
+    β.addTerm("C", 100);
+    Assertions.assertThat(β.toString()).isEqualTo("Blanket{blocks=[A:1,2,3,40; B:2,64,65; C:30,31,32,33,34,100;]}");
+    Assertions.assertThat(Arrays.toString(β.getTerms("B"))).isEqualTo("[2, 64, 65]");
+    Assertions.assertThat(β.getTerms("D")).isNull();
+
+    Block block = β.getBlock("C");
+    StringBuilder terms = new StringBuilder();
+    block.forEachTerm(term -> terms.append(term).append(' '));
+    Assertions.assertThat(terms.toString()).isEqualTo("30 31 32 33 34 100 ");
+    Assertions.assertThat(block.getTermsStream().sum()).isEqualTo(260);
+
+    PrimitiveIterator.OfInt iterator = β.getBlock("A").getTermsIterator();
+    Assertions.assertThat(iterator.nextInt()).isEqualTo(1);
+    Assertions.assertThat(iterator.nextInt()).isEqualTo(2);
+    Assertions.assertThat(iterator.nextInt()).isEqualTo(3);
+    Assertions.assertThat(iterator.nextInt()).isEqualTo(40);
+    Assertions.assertThat(iterator.hasNext()).isFalse();
+  }
+
+  @Test
+  public void blanketOperations_test7()
+  {
+    Blanket β = Blanket.create("A:1,2,3,33,64,65,100;");
+    Block expected = β.getBlock("A");
+
+    Assertions.assertThat(Block.createFromTerms("A", new int[] {1, 2, 3, 33, 64, 64, 65, 100})).isEqualTo(expected);
+    Assertions.assertThat(Block.createFromRanges("A", 64, 65, 1, 3, 100, 100, 33, 33, 2, 2)).isEqualTo(expected);
+
+    BitSet bitSet = new BitSet();
+    for(int term : expected.getTerms()) bitSet.set(term);
+    Assertions.assertThat(Block.createFromBitSet("A", bitSet)).isEqualTo(expected);
+    Assertions.assertThat(Block.createFromWords("A", bitSet.toLongArray())).isEqualTo(expected);
+    Assertions.assertThat(Block.createFromBitSet("X", bitSet).getContentHash()).isEqualTo(expected.getContentHash());
+
+    Assertions.assertThat(Block.createFromRanges("R", 30, 70).toString()).isEqualTo(Block.createFromTerms("R", IntStream.rangeClosed(30, 70).toArray()).toString());
+    Assertions.assertThat(Block.createFromTerms("E", new int[0]).isEmpty()).isTrue();
+    Assertions.assertThat(Block.createFromWords("E", new long[] {1L}).isEmpty()).isTrue();
+
+    // Not sorted terms are rejected, also when the storage couldn't be sized by the first positive and the last term.
+    for(int[] terms : new int[][] {{5, 100, 50}, {100, 5}, {5, 0}})
+    {
+      Exception exception = null;
+      try
+      {
+        Block.createFromTerms("U", terms);
+      }
+      catch(Exception e)
+      {
+        exception = e;
+      }
+      Assertions.assertThat(exception instanceof IllegalArgumentException).isTrue();
+    }
+  }
+
+  @Test
+  public void blanketOperations_test8()
+  {
+    // Blocks with terms concentrated at the end of a large term space.
+    Blanket β = Blanket.create("A:100000,100001,100050; B:100001,100050,100100; C:5,6;");
+    Block βA = β.getBlock("A");
+    Block βB = β.getBlock("B");
+    Block βC = β.getBlock("C");
+
+    Assertions.assertThat(βA.getBlockMul(βB).toString()).isEqualTo("100001,100050;");
+    Assertions.assertThat(βA.getBlockPlus(βC).toString()).isEqualTo("A+C:5,6,100000,100001,100050;");
+    Assertions.assertThat(βA.getBlockMinus(βB).toString()).isEqualTo("100000;");
+    Assertions.assertThat(βA.getBlockMul(βB).getBlockLe(βB)).isTrue();
+    Assertions.assertThat(βA.getBlockMul(βB).getBlockEq(βB.getBlockMinus(Block.createFromTerms("", new int[] {100100})))).isTrue();
+
+    Assertions.assertThat(βA.hasBlockCommonPart(βC)).isFalse();
+    Assertions.assertThat(βA.getBlockMul(βC).isEmpty()).isTrue();
+    Assertions.assertThat(βC.getBlockLe(βA)).isFalse();
+    Assertions.assertThat(βA.getBlockMinus(βC).getBlockEq(βA)).isTrue();
+  }
+
+  @Test
+  public void blanketOperations_test9()
+  {
+    // Wide blocks, which keep the summary of groups of words; B and C have terms in distant regions.
+    Block βA = Block.createFromRanges("A", 10, 20, 1000000, 1000010);
+    Block βB = Block.createFromRanges("B", 1, 100, 500000, 500010, 1000000, 1000100);
+    Block βC = Block.createFromRanges("C", 15, 15, 500005, 500005, 2000000, 2000000);
+
+    Assertions.assertThat(βA.summary).isNotNull();
+    Assertions.assertThat(βA.getBlockLe(βB)).isTrue();
+    Assertions.assertThat(βB.getBlockLe(βA)).isFalse();
+    Assertions.assertThat(βA.getBlockPlus(βC).getBlockLe(βB)).isFalse();
+    Assertions.assertThat(βA.getBlockMul(βC).toString()).isEqualTo("15;");
+    Assertions.assertThat(βB.getBlockMul(βC).toString()).isEqualTo("15,500005;");
+    Assertions.assertThat(βB.intersectionSize(βA)).isEqualTo(22);
+    Assertions.assertThat(βA.hasBlockCommonPart(βC.getBlockMinus(Block.createFromTerms("", new int[] {15})))).isFalse();
+    Assertions.assertThat(βB.getBlockMinus(βB).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void blanketOperations_test10()
+  {
+    // Products with the blanket changed by one block give the same result as products computed from scratch.
+    Blanket βA = Blanket.create("1,2,4,5,7,9,10; 1,4,5,7,8,9,10; 2,4,5,6,9,10; 3,4,5,8,9,10;");
+    Blanket βB = Blanket.create("S0:1,2,3; S3:6,7,8; S5:10;");
+    Block βS1 = Block.createFromTerms("S1", new int[] {4});
+    Block βS4 = Block.createFromTerms("S4", new int[] {9});
+
+    Blanket βBAdded = Blanket.copy(βB);
+    βBAdded.addBlock(βS1);
+    Assertions.assertThat(BlanketProduct.create(βA, βB, false).BxB(βS1).toString()).isEqualTo(βA.BxB(βBAdded).toString());
+
+    Blanket βBReplaced = Blanket.copy(βB);
+    Block βLast = βBReplaced.getBlocks().get(2).getBlockPlus(βS4);
+    βBReplaced.getBlocks().set(2, βLast);
+    Assertions.assertThat(BlanketProduct.create(βA, βB, true).BxB(βLast).toString()).isEqualTo(βA.BxB(βBReplaced).toString());
+  }
+
+  @Test
+  public void blanketOperations_test11()
+  {
+    // Results of operations spanning many 32-bit words have the lowest and the highest term computed over all words (the baseline
+    // computed them wrongly, e.g. the product 1,40,70 reported neither term 1 nor 70).
+    Block βA = Block.createFromTerms("A", new int[] {1, 2, 40, 41, 70, 100});
+    Block βB = Block.createFromTerms("B", new int[] {1, 3, 40, 70, 71});
+    Block βMul = βA.getBlockMul(βB);
+    Assertions.assertThat(βMul.print(false)).isEqualTo("1,40,70;");
+    Assertions.assertThat(βMul.getMinTerm()).isEqualTo(1);
+    Assertions.assertThat(βMul.getMaxTerm()).isEqualTo(70);
+    Assertions.assertThat(βMul.containsTerm(1)).isTrue();
+    Assertions.assertThat(βMul.containsTerm(70)).isTrue();
+    Assertions.assertThat(βMul.getRank()).isEqualTo(3);
+
+    Block βMinus = βA.getBlockMinus(βB);
+    Assertions.assertThat(βMinus.print(false)).isEqualTo("2,41,100;");
+    Assertions.assertThat(βMinus.getMinTerm()).isEqualTo(2);
+    Assertions.assertThat(βMinus.getMaxTerm()).isEqualTo(100);
+    Assertions.assertThat(βMinus.containsTerm(2)).isTrue();
+    Assertions.assertThat(βMinus.containsTerm(100)).isTrue();
+    Assertions.assertThat(βMinus.containsTerm(40)).isFalse();
+  }
 }
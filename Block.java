@@ -21,8 +21,10 @@
 
 package decolib.blankets;
 
-import java.util.Arrays;
-import java.util.Objects;
+import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 /**
  * Represents a block of the blanket. Provides methods allowing for performing basic operation on blocks.
@@ -31,9 +33,14 @@ public class Block
 {
   String name;
   int[] data = new int[1];
+  int offset = 0;                   // offset = indeks pierwszego niezerowego słowa bloku, słowa przed nim nie są przechowywane w tablicy data.
   int rank = 0;                     // rank = liczba termów w bloku.
   int minTerm = Integer.MAX_VALUE;  // minTerm = numer najmniejszego termu przechowywanego w bloku.
   int maxTerm = -1;                 // maxTerm = numer największego termu przechowywanego w bloku.
+  long[] summary = null;            // summary = jeden bit na grupę 64 słów (bit grupy g w słowie g / 64), ustawiony gdy grupa ma niezerowe słowo; tylko dla szerokich bloków.
+
+  // Minimal number of words of a block, for which the summary of groups of words is kept.
+  static final int SUMMARY_MIN_WORDS = 256;
 
   /**
    * @param name a name of this block, may be empty
@@ -63,6 +70,30 @@ public class Block
     return (data.length == 1 && data[0] == 0);
   }
 
+  /**
+   * @return number of terms in this block
+   */
+  public int getRank()
+  {
+    return rank;
+  }
+
+  /**
+   * @return the lowest term of this block, or Integer.MAX_VALUE for the empty block
+   */
+  public int getMinTerm()
+  {
+    return minTerm;
+  }
+
+  /**
+   * @return the highest term of this block, or -1 for the empty block
+   */
+  public int getMaxTerm()
+  {
+    return maxTerm;
+  }
+
   /**
    * Method inserts a term info the block.
    *
@@ -77,13 +108,85 @@ public class Block
 
       term--;
 
-      if(data.length < ((term / 32) + 1)) data = Arrays.copyOf(data, (term / 32) + 1);
-      data[term / 32] |= (1 << (term % 32));
+      ensureWords(term / 32, term / 32);
+      if((data[term / 32 - offset] & (1 << (term % 32))) == 0) rank++;  // A term set again doesn't change the rank.
+      data[term / 32 - offset] |= (1 << (term % 32));
+
+      if(data.length >= SUMMARY_MIN_WORDS)
+      {
+        if(summary == null) setSummary();
+        else summary[(term / 32 >>> 12) - (offset >>> 12)] |= 1L << (term / 32 >>> 6);
+      }
+    }
+  }
+
+  // Method extends the storage of the block, so it covers words from firstWord to lastWord. Words of an empty block are not kept.
+  private void ensureWords(int firstWord, int lastWord)
+  {
+    if(rank == 0 && data[0] == 0)
+    {
+      if(data.length != lastWord - firstWord + 1) data = new int[lastWord - firstWord + 1];
+      offset = firstWord;
+      summary = null;
+    }
+    else
+    {
+      int newOffset = Math.min(offset, firstWord);
+      int newLength = Math.max(offset + data.length, lastWord + 1) - newOffset;
 
-      rank++;
+      if(newOffset != offset || newLength != data.length)
+      {
+        int[] newData = new int[newLength];
+        System.arraycopy(data, 0, newData, offset - newOffset, data.length);
+        data = newData;
+        offset = newOffset;
+        summary = null;
+      }
     }
   }
 
+  /**
+   * Method inserts terms into the block.
+   *
+   * @param terms values of the terms
+   */
+  void setTerms(int[] terms)
+  {
+    setTerms(terms, terms.length);
+  }
+
+  /**
+   * Method inserts terms into the block. The storage of the block is extended at most once, thus the terms may be given in any order.
+   *
+   * @param terms  values of the terms
+   * @param length number of values, from the beginning of the array, which should be inserted
+   */
+  void setTerms(int[] terms, int length)
+  {
+    int minTermSet = Integer.MAX_VALUE;
+    int maxTermSet = 0;
+    for(int i = 0; i < length; i++)
+    {
+      if(terms[i] > 0 && terms[i] < minTermSet) minTermSet = terms[i];
+      if(terms[i] > maxTermSet) maxTermSet = terms[i];
+    }
+
+    if(maxTermSet > 0) ensureWords((minTermSet - 1) / 32, (maxTermSet - 1) / 32);
+
+    for(int i = 0; i < length; i++)
+      setTerm(terms[i]);
+  }
+
+  /**
+   * Method inserts terms into the block.
+   *
+   * @param terms iterator over values of the terms
+   */
+  void setTerms(PrimitiveIterator.OfInt terms)
+  {
+    while(terms.hasNext()) setTerm(terms.nextInt());
+  }
+
   /**
    * Method checks whether the block contains given term. Used internally in blankets.
    *
@@ -97,7 +200,249 @@ public class Block
 
     term--;
 
-    return ((data[term / 32] & (1 << (term % 32))) != 0);
+    return ((data[term / 32 - offset] & (1 << (term % 32))) != 0);
+  }
+
+  /**
+   * Method passes the terms of this block, in increasing order, to the given consumer.
+   *
+   * @param consumer a consumer of the terms
+   */
+  public void forEachTerm(IntConsumer consumer)
+  {
+    int term = offset * 32 + 1;
+    for(int d : data)
+    {
+      // Trailing zeros of the word point to the next term, which is next cleared from the word.
+      while(d != 0)
+      {
+        consumer.accept(term + Integer.numberOfTrailingZeros(d));
+        d &= d - 1;
+      }
+
+      term += 32;
+    }
+  }
+
+  /**
+   * Method returns the terms of this block.
+   *
+   * @return terms, in increasing order
+   */
+  public int[] getTerms()
+  {
+    int[] terms = new int[rank];
+    int pos = 0;
+    int term = offset * 32 + 1;
+
+    for(int d : data)
+    {
+      while(d != 0)
+      {
+        terms[pos++] = term + Integer.numberOfTrailingZeros(d);
+        d &= d - 1;
+      }
+
+      term += 32;
+    }
+
+    return terms;
+  }
+
+  /**
+   * Method returns an iterator over the terms of this block.
+   *
+   * @return iterator returning terms in increasing order
+   */
+  public PrimitiveIterator.OfInt getTermsIterator()
+  {
+    return new PrimitiveIterator.OfInt()
+    {
+      private int pos = 0;      // Position of the processed word.
+      private int word = data[0];
+
+      @Override
+      public boolean hasNext()
+      {
+        while(word == 0 && pos < data.length - 1) word = data[++pos];
+        return word != 0;
+      }
+
+      @Override
+      public int nextInt()
+      {
+        if(!hasNext()) throw new NoSuchElementException();
+
+        int term = (offset + pos) * 32 + Integer.numberOfTrailingZeros(word) + 1;
+        word &= word - 1;
+        return term;
+      }
+    };
+  }
+
+  /**
+   * Method returns a stream of the terms of this block.
+   *
+   * @return stream of terms, in increasing order
+   */
+  public IntStream getTermsStream()
+  {
+    return StreamSupport.intStream(Spliterators.spliterator(getTermsIterator(), rank,
+      Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+  }
+
+  /**
+   * Method creates a block from terms sorted in increasing order. The storage of the block is allocated once, and the rank,
+   * the minimal and the maximal term are computed while the terms are set.
+   *
+   * @param name  a name of the block, may be empty
+   * @param terms terms sorted in increasing order (repeated terms and values lower than 1 are skipped)
+   * @return block
+   * @throws IllegalArgumentException when the terms are not sorted
+   */
+  public static Block createFromTerms(String name, int[] terms)
+  {
+    // The order is checked before the storage is allocated, because its size is given by the first positive and the last term.
+    for(int i = 1; i < terms.length; i++)
+      if(terms[i] < terms[i - 1]) throw new IllegalArgumentException(String.format("Terms are not sorted, term %s follows term %s", terms[i], terms[i - 1]));
+
+    Block block = new Block(name);
+
+    if(terms.length > 0 && terms[terms.length - 1] > 0)
+    {
+      int first = 0;
+      while(terms[first] <= 0) first++;
+
+      block.offset = (terms[first] - 1) / 32;
+      block.data = new int[((terms[terms.length - 1] - 1) / 32) + 1 - block.offset];
+
+      int prevTerm = Integer.MIN_VALUE;
+      for(int term : terms)
+      {
+        if(term > prevTerm && term > 0)
+        {
+          if(block.rank++ == 0) block.minTerm = term;
+          block.data[(term - 1) / 32 - block.offset] |= (1 << ((term - 1) % 32));
+        }
+
+        prevTerm = term;
+      }
+
+      block.maxTerm = prevTerm;
+      block.setSummary();
+    }
+
+    return block;
+  }
+
+  /**
+   * Method creates a block from a bit set, where the bit n represents the term n (the bit 0 is skipped, because terms are numbered from 1).
+   *
+   * @param name  a name of the block, may be empty
+   * @param terms bit set with the terms
+   * @return block
+   */
+  public static Block createFromBitSet(String name, BitSet terms)
+  {
+    return createFromWords(name, terms.toLongArray());
+  }
+
+  /**
+   * Method creates a block from 64-bit words, laid out as in {@link BitSet#toLongArray()}, i.e. the bit n (bit n % 64 of the
+   * word n / 64) represents the term n. The bit 0 is skipped, because terms are numbered from 1.
+   *
+   * @param name  a name of the block, may be empty
+   * @param words words with the terms
+   * @return block
+   */
+  public static Block createFromWords(String name, long[] words)
+  {
+    Block block = new Block(name);
+
+    int lastWord = words.length - 1;
+    while(lastWord >= 0 && (lastWord > 0 ? words[lastWord] : words[0] & ~1L) == 0) lastWord--;
+
+    if(lastWord >= 0)
+    {
+      int firstWord = 0;
+      while((firstWord > 0 ? words[firstWord] : words[0] & ~1L) == 0) firstWord++;
+
+      int minTermSet = firstWord * 64 + Long.numberOfTrailingZeros(firstWord > 0 ? words[firstWord] : words[0] & ~1L);
+      int maxTermSet = lastWord * 64 + 63 - Long.numberOfLeadingZeros(words[lastWord]);
+      block.offset = (minTermSet - 1) / 32;
+      block.data = new int[((maxTermSet - 1) / 32) + 1 - block.offset];
+
+      // The word i of the block stores the terms 32 * i + 1 ... 32 * i + 32, i.e. 32 bits starting from the bit 32 * i + 1 of the given words.
+      for(int i = 0; i < block.data.length; i++)
+      {
+        int bit = 32 * (block.offset + i) + 1;
+        long value = words[bit >>> 6] >>> (bit & 63);
+        if((bit & 63) > 32 && (bit >>> 6) + 1 < words.length) value |= words[(bit >>> 6) + 1] << (64 - (bit & 63));
+
+        block.data[i] = (int)value;
+      }
+
+      block.setBlockStatistics();
+    }
+
+    return block;
+  }
+
+  /**
+   * Method creates a block from ranges of terms. The ranges may overlap and may be given in any order.
+   *
+   * @param name   a name of the block, may be empty
+   * @param ranges pairs of values: from, to (both inclusive), like 1, 10, 20, 25 for terms 1...10 and 20...25
+   * @return block
+   * @throws IllegalArgumentException when there is odd number of values
+   */
+  public static Block createFromRanges(String name, int ... ranges)
+  {
+    if(ranges.length % 2 != 0) throw new IllegalArgumentException("Ranges should be given as pairs of values: from, to");
+
+    Block block = new Block(name);
+
+    int minTermSet = Integer.MAX_VALUE;
+    int maxTermSet = 0;
+    for(int i = 0; i < ranges.length; i += 2)
+    {
+      if(Math.max(ranges[i], 1) <= ranges[i + 1])
+      {
+        if(Math.max(ranges[i], 1) < minTermSet) minTermSet = Math.max(ranges[i], 1);
+        if(ranges[i + 1] > maxTermSet) maxTermSet = ranges[i + 1];
+      }
+    }
+
+    if(maxTermSet > 0)
+    {
+      block.offset = (minTermSet - 1) / 32;
+      block.data = new int[((maxTermSet - 1) / 32) + 1 - block.offset];
+
+      for(int i = 0; i < ranges.length; i += 2)
+      {
+        int first = Math.max(ranges[i], 1) - 1 - block.offset * 32;
+        int last = ranges[i + 1] - 1 - block.offset * 32;
+
+        if(first <= last)
+        {
+          int firstMask = -1 << (first % 32);
+          int lastMask = -1 >>> (31 - (last % 32));
+
+          if(first / 32 == last / 32)
+            block.data[first / 32] |= firstMask & lastMask;
+          else
+          {
+            block.data[first / 32] |= firstMask;
+            for(int j = first / 32 + 1; j < last / 32; j++) block.data[j] = -1;
+            block.data[last / 32] |= lastMask;
+          }
+        }
+      }
+
+      block.setBlockStatistics();
+    }
+
+    return block;
   }
 
   /**
@@ -122,9 +467,11 @@ public class Block
   {
     Block resultBlock = new Block(name);
     resultBlock.data = new int[other.data.length];
+    resultBlock.offset = other.offset;
     resultBlock.rank = other.rank;
     resultBlock.minTerm = other.minTerm;
     resultBlock.maxTerm = other.maxTerm;
+    resultBlock.summary = other.summary != null ? other.summary.clone() : null;
 
     System.arraycopy(other.data, 0, resultBlock.data, 0, resultBlock.data.length);
     return resultBlock;
@@ -139,19 +486,17 @@ public class Block
    */
   public Block getBlockPlus(Block other)
   {
-    Block resultBlock = new Block(!name.isEmpty() && !other.name.isEmpty() ? name + "+" + other.name : "");
-    resultBlock.data = new int[data.length >= other.data.length ? data.length : other.data.length];
+    String resultName = !name.isEmpty() && !other.name.isEmpty() ? name + "+" + other.name : "";
+    if(other.isEmpty()) return copyBlock(resultName, this);
+    if(isEmpty()) return copyBlock(resultName, other);
 
-    if(data.length >= other.data.length)
-    {
-      for(int i = 0; i < data.length; i++)
-        resultBlock.data[i] = data[i] | (i < other.data.length ? other.data[i] : 0);
-    }
-    else
-    {
-      for(int i = 0; i < other.data.length; i++)
-        resultBlock.data[i] = other.data[i] | (i < data.length ? data[i] : 0);
-    }
+    Block resultBlock = new Block(resultName);
+    resultBlock.offset = offset < other.offset ? offset : other.offset;
+    resultBlock.data = new int[Math.max(offset + data.length, other.offset + other.data.length) - resultBlock.offset];
+
+    System.arraycopy(data, 0, resultBlock.data, offset - resultBlock.offset, data.length);
+    for(int i = 0, pos = other.offset - resultBlock.offset; i < other.data.length; i++)
+      resultBlock.data[pos + i] |= other.data[i];
 
     resultBlock.setBlockRank();
     resultBlock.minTerm = minTerm > other.minTerm ? other.minTerm : minTerm;
@@ -169,27 +514,54 @@ public class Block
    */
   public Block getBlockMul(Block other)
   {
-    int size = data.length < other.data.length ? data.length : other.data.length;
-    Block resultBlock = new Block("");
-    resultBlock.data = new int[size];
-
-    for(int i = 0; i < size; i++)
-      resultBlock.data[i] = data[i] & other.data[i];
+    if(isDisjointRange(other)) return new Block("");
 
-    for(int i = size; i > 0; i--)
-      if(resultBlock.data[i - 1] == 0) size--;
-      else break;
+    // Only words present in both blocks are processed.
+    int first = Math.max(offset, other.offset);
+    int last = Math.min(offset + data.length, other.offset + other.data.length) - 1;
 
-    if(size > 0)
+    boolean summaries = summary != null && other.summary != null;
+    if(summaries)
     {
-      if(size < resultBlock.data.length) resultBlock.data = Arrays.copyOf(resultBlock.data, size);
-      resultBlock.setMinTerm();
-      resultBlock.setMaxTerm();
+      // Only groups of words marked in both summaries are processed.
+      int firstFound = -1;
+      int lastFound = -1;
+      for(int group = nextGroup(first >>> 6, other); group >= 0 && group <= last >>> 6; group = nextGroup(group + 1, other))
+        for(int i = Math.max(group * 64, first), end = Math.min(group * 64 + 63, last); i <= end; i++)
+          if((data[i - offset] & other.data[i - other.offset]) != 0)
+          {
+            if(firstFound < 0) firstFound = i;
+            lastFound = i;
+          }
+
+      first = firstFound < 0 ? 0 : firstFound;
+      last = lastFound;
     }
     else
-      resultBlock = new Block("");
+    {
+      while(first <= last && (data[first - offset] & other.data[first - other.offset]) == 0) first++;
+      while(last >= first && (data[last - offset] & other.data[last - other.offset]) == 0) last--;
+    }
 
-    resultBlock.setBlockRank();
+    Block resultBlock = new Block("");
+    if(first <= last)
+    {
+      resultBlock.offset = first;
+      resultBlock.data = new int[last - first + 1];
+      if(summaries)
+      {
+        for(int group = nextGroup(first >>> 6, other); group >= 0 && group <= last >>> 6; group = nextGroup(group + 1, other))
+          for(int i = Math.max(group * 64, first), end = Math.min(group * 64 + 63, last); i <= end; i++)
+            resultBlock.data[i - first] = data[i - offset] & other.data[i - other.offset];
+      }
+      else
+      {
+        for(int i = first; i <= last; i++)
+          resultBlock.data[i - first] = data[i - offset] & other.data[i - other.offset];
+      }
+
+      resultBlock.setBlockStatistics();
+    }
 
     return resultBlock;
   }
@@ -219,32 +591,32 @@ public class Block
     //               1000010000 = 1,6
     //
 
-    Block resultBlock = new Block("");
-    resultBlock.data = new int[data.length];
+    if(isEmpty()) return new Block("");
+    if(isDisjointRange(other)) return copyBlock("", this);
 
-    for(int i = 0, len = (data.length < other.data.length ? data.length : other.data.length); i < len; i++)
-      resultBlock.data[i] = data[i] & (~other.data[i]);
+    Block resultBlock = new Block("");
+    resultBlock.data = Arrays.copyOf(data, data.length);
 
-    // Copying others sub-blocks (step 2).
-    if(data.length - other.data.length >= 0)
-      System.arraycopy(data, other.data.length, resultBlock.data, other.data.length, data.length - other.data.length);
+    // Words of this block (A) outside of the words of other block (B) are already copied (step 2).
+    int first = Math.max(offset, other.offset);
+    int last = Math.min(offset + data.length, other.offset + other.data.length) - 1;
+    for(int i = first; i <= last; i++)
+      resultBlock.data[i - offset] &= ~other.data[i - other.offset];
 
+    int start = 0;
     int size = resultBlock.data.length;
-    for(int i = size; i > 0; i--)
-      if(resultBlock.data[i - 1] == 0) size--;
-      else break;
+    while(start < size && resultBlock.data[start] == 0) start++;
+    while(size > start && resultBlock.data[size - 1] == 0) size--;
 
-    if(size > 0)
+    if(size > start)
     {
-      if(size < resultBlock.data.length) resultBlock.data = Arrays.copyOf(resultBlock.data, size);
-      resultBlock.setMinTerm();
-      resultBlock.setMaxTerm();
+      if(start > 0 || size < resultBlock.data.length) resultBlock.data = Arrays.copyOfRange(resultBlock.data, start, size);
+      resultBlock.offset = offset + start;
+      resultBlock.setBlockStatistics();
     }
     else
       resultBlock = new Block("");
 
-    resultBlock.setBlockRank();
-
     return resultBlock;
   }
 
@@ -256,7 +628,7 @@ public class Block
    */
   public boolean getBlockEq(Block other)
   {
-    if(data.length != other.data.length) return false;
+    if(offset != other.offset || data.length != other.data.length) return false;
     for(int i = 0; i < data.length; i++)
       if(data[i] != other.data[i]) return false;
 
@@ -293,10 +665,24 @@ public class Block
     //                0000000000 A <= B                       0100000000 A > B
     //
 
-    if(other.data.length < data.length) return false;
+    if(isEmpty()) return true;
+    if(minTerm < other.minTerm || maxTerm > other.maxTerm || rank > other.rank) return false;  // The range of terms of A is not included in B.
 
-    for(int i = 0; i < data.length; i++)
-      if((data[i] & other.data[i]) != data[i]) return false;
+    if(summary != null && other.summary != null)
+    {
+      // A group of words with terms of A, which has no terms of B, means that A is not included in B.
+      for(int i = 0, shift = (offset >>> 12) - (other.offset >>> 12); i < summary.length; i++)
+        if((summary[i] & ~(i + shift < other.summary.length ? other.summary[i + shift] : 0)) != 0) return false;
+
+      for(int group = nextGroup(offset >>> 6, null); group >= 0; group = nextGroup(group + 1, null))
+        for(int i = Math.max(group * 64, offset), end = Math.min(group * 64 + 64, offset + data.length); i < end; i++)
+          if((data[i - offset] & other.data[i - other.offset]) != data[i - offset]) return false;
+
+      return true;
+    }
+
+    for(int i = 0, pos = offset - other.offset; i < data.length; i++)
+      if((data[i] & other.data[pos + i]) != data[i]) return false;
 
     return true;
   }
@@ -309,77 +695,186 @@ public class Block
    */
   public boolean hasBlockCommonPart(Block other)
   {
-    for(int i = 0, len = (data.length < other.data.length ? data.length : other.data.length); i < len; i++)
-      if((data[i] & other.data[i]) != 0) return true;
+    if(isDisjointRange(other)) return false;
+
+    int first = Math.max(offset, other.offset);
+    int last = Math.min(offset + data.length, other.offset + other.data.length) - 1;
+
+    if(summary != null && other.summary != null)
+    {
+      for(int group = nextGroup(first >>> 6, other); group >= 0 && group <= last >>> 6; group = nextGroup(group + 1, other))
+        for(int i = Math.max(group * 64, first), end = Math.min(group * 64 + 63, last); i <= end; i++)
+          if((data[i - offset] & other.data[i - other.offset]) != 0) return true;
+      return false;
+    }
+
+    for(int i = first; i <= last; i++)
+      if((data[i - offset] & other.data[i - other.offset]) != 0) return true;
     return false;
   }
 
-  // Method sets the rank of the block, i.e. the number of terms stored in this block.
-  private void setBlockRank()
+  // Method checks whether ranges of terms of blocks are disjoint, what is also true when any of blocks is empty. Disjoint blocks have no common terms.
+  private boolean isDisjointRange(Block other)
+  {
+    return maxTerm < other.minTerm || other.maxTerm < minTerm;
+  }
+
+  /**
+   * Method computes the number of terms common to this block (A) and the other block (B), without creating a new block.
+   *
+   * @param other the block (B), the second argument of the operation
+   * @return |A and B|
+   */
+  public int intersectionSize(Block other)
+  {
+    if(isDisjointRange(other)) return 0;
+
+    int size = 0;
+    int first = Math.max(offset, other.offset);
+    int last = Math.min(offset + data.length, other.offset + other.data.length) - 1;
+
+    if(summary != null && other.summary != null)
+    {
+      for(int group = nextGroup(first >>> 6, other); group >= 0 && group <= last >>> 6; group = nextGroup(group + 1, other))
+        for(int i = Math.max(group * 64, first), end = Math.min(group * 64 + 63, last); i <= end; i++)
+          size += Integer.bitCount(data[i - offset] & other.data[i - other.offset]);
+      return size;
+    }
+
+    for(int i = first; i <= last; i++)
+      size += Integer.bitCount(data[i - offset] & other.data[i - other.offset]);
+
+    return size;
+  }
+
+  /**
+   * Method computes the number of terms of the sum of this block (A) and the other block (B), without creating a new block.
+   *
+   * @param other the block (B), the second argument of the operation
+   * @return |A or B|
+   */
+  public int unionSize(Block other)
+  {
+    return rank + other.rank - intersectionSize(other);
+  }
+
+  /**
+   * Method computes the number of terms of this block (A), which are not present in the other block (B), without creating a new block.
+   *
+   * @param other the block (B), the second argument of the operation
+   * @return |A - B|
+   */
+  public int differenceSize(Block other)
+  {
+    return rank - intersectionSize(other);
+  }
+
+  /**
+   * Method computes the Jaccard similarity of this block (A) and the other block (B), without creating a new block.
+   *
+   * @param other the block (B), the second argument of the operation
+   * @return |A and B| / |A or B|, or 1 if both blocks are empty
+   */
+  public double jaccard(Block other)
+  {
+    int intersection = intersectionSize(other);
+    int union = rank + other.rank - intersection;
+
+    return union > 0 ? intersection / (double)union : 1.0;
+  }
+
+  // Method sets the rank, the minimal and the maximal term of this block in one pass over the data. The minimal term is taken from the first
+  // non-empty word and the maximal term from the last one, also for blocks spanning many words (like results of getBlockMul and getBlockMinus).
+  private void setBlockStatistics()
   {
     rank = 0;
-    for(int d : data)
+    minTerm = Integer.MAX_VALUE;
+    maxTerm = -1;
+
+    for(int i = 0; i < data.length; i++)
     {
-      if(d != 0)
+      if(data[i] != 0)
       {
-        int mask = 1;
-        for(int i = 0; i < 32; i++)
-        {
-          if((d & mask) != 0) rank++;
-          mask <<= 1;
-        }
+        if(rank == 0) minTerm = 32 * (offset + i) + Integer.numberOfTrailingZeros(data[i]) + 1;
+        maxTerm = 32 * (offset + i) + 32 - Integer.numberOfLeadingZeros(data[i]);
+        rank += Integer.bitCount(data[i]);
       }
     }
+
+    setSummary();
   }
 
-  // Method sets the minimal term, stored in this block.
-  private void setMinTerm()
+  // Method sets the rank of the block, i.e. the number of terms stored in this block.
+  private void setBlockRank()
   {
-    int term = 1;
-    for(int d : data)
-    {
-      if(d != 0)
-      {
-        int mask = 1;
-        for(int i = 0; i < 32; i++)
-        {
-          if((d & mask) != 0)
-          {
-            minTerm = term + i;
-            break;
-          }
+    rank = 0;
+    for(int d : data) rank += Integer.bitCount(d);
 
-          mask <<= 1;
-        }
-      }
+    setSummary();
+  }
 
-      term += 32;
+  // Method sets the summary of a wide block, i.e. the bits of groups of 64 words, which contain any term. Bits of the summary are
+  // numbered from the group 64 * (offset / 4096), so words of summaries of different blocks describe the same groups.
+  private void setSummary()
+  {
+    if(data.length < SUMMARY_MIN_WORDS)
+    {
+      summary = null;
+      return;
     }
+
+    summary = new long[((offset + data.length - 1) >>> 12) - (offset >>> 12) + 1];
+    for(int i = 0; i < data.length; i++)
+      if(data[i] != 0) summary[((offset + i) >>> 12) - (offset >>> 12)] |= 1L << ((offset + i) >>> 6);
   }
 
-  // Method sets the maximal term, stored in this block.
-  private void setMaxTerm()
+  // Method returns the first group of words, not lower than the given one, which is marked in the summary of this block and,
+  // if the other block is given, in its summary. Returns -1, if there is no such group.
+  private int nextGroup(int group, Block other)
   {
-    int term = data.length * 32;
-    for(int i = data.length - 1; i >= 0; i--)
+    int base = offset >>> 12;
+    for(int i = Math.max((group >>> 6) - base, 0); i < summary.length; i++)
     {
-      if(data[i] != 0)
+      long word = summary[i];
+      if(i == (group >>> 6) - base) word &= -1L << group;
+      if(other != null)
       {
-        int mask = 0x80000000;
-        for(int j = 31; j >= 0; j--)
-        {
-          if((data[i] & mask) != 0)
-          {
-            maxTerm = term + 1 - (32 - j);
-            break;
-          }
-
-          mask >>= 1;
-        }
+        int j = i + base - (other.offset >>> 12);
+        word &= j >= 0 && j < other.summary.length ? other.summary[j] : 0;
       }
 
-      term -= 32;
+      if(word != 0) return (i + base) * 64 + Long.numberOfTrailingZeros(word);
     }
+
+    return -1;
+  }
+
+  /**
+   * Method computes the signature of this block: the bit (i % 64) of the signature is set, when the block has any of terms
+   * 32 * i + 1 ... 32 * i + 32. The signature of a block included in other block is included in the signature of the other block.
+   *
+   * @return signature of the block
+   */
+  public long getSignature()
+  {
+    long signature = 0;
+    for(int i = 0; i < data.length && signature != -1L; i++)
+      if(data[i] != 0) signature |= 1L << (offset + i);
+
+    return signature;
+  }
+
+  /**
+   * Method computes the hash code of the terms of this block, the name of the block is not taken into account. Blocks equal
+   * in the sense of "getBlockEq" have the same hash code.
+   *
+   * @return hash code of the terms
+   */
+  public int getContentHash()
+  {
+    int result = offset;
+    for(int d : data) result = 31 * result + d;
+    return result;
   }
 
   @Override
@@ -389,6 +884,7 @@ public class Block
     if(!(o instanceof Block)) return false;
     Block block = (Block)o;
     return rank == block.rank &&
+      offset == block.offset &&
       minTerm == block.minTerm &&
       maxTerm == block.maxTerm &&
       Objects.equals(name, block.name) &&
@@ -398,7 +894,7 @@ public class Block
   @Override
   public int hashCode()
   {
-    int result = Objects.hash(name, rank, minTerm, maxTerm);
+    int result = Objects.hash(name, offset, rank, minTerm, maxTerm);
     result = 31 * result + Arrays.hashCode(data);
     return result;
   }
@@ -412,18 +908,7 @@ public class Block
   public String print(boolean printName)
   {
     StringBuilder termsStr = new StringBuilder();
-    int term = 1;
-
-    for(int d : data)
-    {
-      if(d != 0)
-      {
-        for(int i = 0; i < 32; i++)
-          if((d & (1 << i)) != 0) termsStr.append(term + i).append(",");
-      }
-
-      term += 32;
-    }
+    forEachTerm(term -> termsStr.append(term).append(","));
 
     if(termsStr.length() > 0) termsStr.deleteCharAt(termsStr.length() - 1).append(";");
 
@@ -0,0 +1,58 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions;
+
+import decolib.blankets.Block;
+
+/**
+ * Wraps a block, so it may be used as a key of hash sets and maps. Keys are equal, when blocks have the same terms
+ * (names of blocks are not taken into account).
+ */
+final class BlockKey
+{
+  private final Block block;
+  private final int hash;
+
+  /**
+   * @param block the block, which should not be changed while the key is used
+   */
+  BlockKey(Block block)
+  {
+    this.block = block;
+    this.hash = block.getContentHash();
+  }
+
+  @Override
+  public boolean equals(Object o)
+  {
+    if(this == o) return true;
+    if(!(o instanceof BlockKey)) return false;
+    BlockKey other = (BlockKey)o;
+    return hash == other.hash && block.getBlockEq(other.block);
+  }
+
+  @Override
+  public int hashCode()
+  {
+    return hash;
+  }
+}
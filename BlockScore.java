@@ -0,0 +1,44 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions;
+
+import decolib.blankets.Block;
+
+/**
+ * A scoring function, used for choosing the order in which blocks are merged by the decomposition helpers. The higher score
+ * means that the candidate block should be tried earlier.
+ */
+@FunctionalInterface
+public interface BlockScore
+{
+  BlockScore JACCARD = Block::jaccard;                // Prefers candidates similar to the merged block.
+  BlockScore INTERSECTION = Block::intersectionSize;  // Prefers candidates having the most terms in common with the merged block.
+
+  /**
+   * Method computes the score of the candidate block, which may be merged with the block built so far.
+   *
+   * @param blockQ    the block built so far
+   * @param candidate the candidate block
+   * @return score of the candidate
+   */
+  double score(Block blockQ, Block candidate);
+}
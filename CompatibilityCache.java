@@ -0,0 +1,152 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions;
+
+import decolib.blankets.Blanket;
+import decolib.blankets.Block;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Caches, for the given blanket F, the sets of blocks of F including the given blocks (covers of blocks), which are computed while
+ * blankets fulfilling the relation (A x Q &lt;= F) are generated. The cache may be shared by many calls of the method
+ * "generateMinimalBlanket(A, B, F, cache)" with the same blanket F and different blankets A and B, like in each step of the
+ * serial decomposition. Covers are stored by terms of blocks, thus a cover computed for one pair of blankets A, B is reused for
+ * any other pair having the same common part of blocks, and new blocks only are computed. The index of blocks of F by terms
+ * and signatures of blocks of F allow to check only some of blocks of F, while the cover is computed. The index has entries for terms
+ * present in F only. When the number of covers exceeds the limit, the oldest covers are removed. The cache may be used by many threads.
+ */
+public class CompatibilityCache
+{
+  private static final int MAX_COVERS = 1 << 16;  // Maximal number of stored covers, the oldest covers are removed when it is exceeded.
+
+  private final Blanket F;
+  private final List<Block> fBlocks;
+  private final int words;
+  private final int[] terms;          // Sorted terms of blocks of F.
+  private final long[] termIndex;     // Bits of blocks of F containing the term terms[i] are stored from the position i * words.
+  private final long[] signatures;
+  private final long[] allBlocks;     // Bits of all blocks of F - the cover of the empty block.
+  private final Map<BlockKey, long[]> covers = new ConcurrentHashMap<>();
+  private final Queue<BlockKey> coversOrder = new ConcurrentLinkedQueue<>();  // Keys of covers in order of insertion.
+
+  private CompatibilityCache(Blanket F)
+  {
+    this.F = F;
+    fBlocks = F.getBlocks();
+    words = (fBlocks.size() + 63) / 64;
+    signatures = new long[fBlocks.size()];
+    allBlocks = new long[words];
+
+    BitSet termsSet = new BitSet();
+    for(Block blockF : fBlocks) blockF.forEachTerm(termsSet::set);
+    terms = termsSet.stream().toArray();
+    termIndex = new long[terms.length * words];
+
+    for(int f = 0; f < fBlocks.size(); f++)
+    {
+      int position = f;
+      fBlocks.get(f).forEachTerm(term -> termIndex[Arrays.binarySearch(terms, term) * words + (position >>> 6)] |= 1L << position);
+      signatures[f] = fBlocks.get(f).getSignature();
+      allBlocks[f >>> 6] |= 1L << f;
+    }
+  }
+
+  /**
+   * Method creates the cache for the given blanket, which should not be changed while the cache is used.
+   *
+   * @param F blanket, the third parameter of the relation (A x Q &lt;= F)
+   * @return cache
+   */
+  public static CompatibilityCache create(Blanket F)
+  {
+    return new CompatibilityCache(F);
+  }
+
+  /**
+   * @return blanket F of the cache
+   */
+  public Blanket getBlanket()
+  {
+    return F;
+  }
+
+  /**
+   * Method returns the cover of the block, i.e. the bits of blocks of F (in order of blocks of F), which include the block. Returned
+   * array should not be changed.
+   *
+   * @param block the block, which should not be changed later
+   * @return cover of the block
+   */
+  long[] getCover(Block block)
+  {
+    if(block.isEmpty()) return allBlocks;
+
+    BlockKey key = new BlockKey(block);
+    long[] cover = covers.get(key);
+    if(cover == null)
+    {
+      cover = computeCover(block);
+      if(covers.putIfAbsent(key, cover) == null)
+      {
+        coversOrder.add(key);
+        while(covers.size() > MAX_COVERS)
+        {
+          BlockKey oldest = coversOrder.poll();
+          if(oldest == null) break;
+          covers.remove(oldest);
+        }
+      }
+    }
+
+    return cover;
+  }
+
+  private long[] computeCover(Block block)
+  {
+    long[] cover = new long[words];
+    int minPosition = Arrays.binarySearch(terms, block.getMinTerm());
+    int maxPosition = Arrays.binarySearch(terms, block.getMaxTerm());
+    if(minPosition < 0 || maxPosition < 0) return cover;  // The block has terms, which are not present in blanket F.
+
+    // Only blocks of F having the lowest and the highest term of the block, and the signature including the signature of the block, are checked.
+    long signature = block.getSignature();
+    for(int w = 0; w < words; w++)
+    {
+      long bits = termIndex[minPosition * words + w] & termIndex[maxPosition * words + w];
+      while(bits != 0)
+      {
+        int f = w * 64 + Long.numberOfTrailingZeros(bits);
+        if((signature & ~signatures[f]) == 0 && block.getBlockLe(fBlocks.get(f))) cover[w] |= 1L << f;
+        bits &= bits - 1;
+      }
+    }
+
+    return cover;
+  }
+}
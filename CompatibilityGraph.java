@@ -0,0 +1,123 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions;
+
+import decolib.blankets.Block;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Compatibility graph of blocks of blanket B, which may be summed into blocks of blanket Q fulfilling the relation (A x Q &lt;= F).
+ * For each block of B and each block of A, the set of blocks of F including their common part is computed (the cover of the block).
+ * Two blocks of B are compatible, when for each block of A their covers have a common block of F, i.e. the sum of the blocks
+ * fulfils the relation. The compatibility of pairs is necessary, but not sufficient for summing more than two blocks.
+ * Covers and rows of the graph are computed in parallel.
+ */
+final class CompatibilityGraph
+{
+  static final int MIN_BLOCKS = 16;  // Minimal number of blocks of B, for which the graph is built.
+
+  final long[][][] covers;           // covers[i][a] = bits of blocks of F, which include the common part of block i of B and block a of A.
+  final long[][] rows;               // rows[i] = bits of blocks of B, which are compatible with block i of B (including block i, if it fulfils the relation).
+
+  /**
+   * @param aBlocks blocks of blanket A, the single null means the block of all terms
+   * @param bBlocks blocks of blanket B
+   * @param fBlocks blocks of blanket F
+   * @param cache cache of covers of blocks for blanket F (may be null)
+   */
+  CompatibilityGraph(List<Block> aBlocks, List<Block> bBlocks, List<Block> fBlocks, CompatibilityCache cache)
+  {
+    int words = (fBlocks.size() + 63) / 64;
+    covers = new long[bBlocks.size()][][];
+    rows = new long[bBlocks.size()][(bBlocks.size() + 63) / 64];
+
+    IntStream.range(0, bBlocks.size()).parallel().forEach(i -> {
+      covers[i] = new long[aBlocks.size()][words];
+      for(int a = 0; a < aBlocks.size(); a++)
+      {
+        Block blockA = aBlocks.get(a);
+        Block common = blockA != null ? blockA.getBlockMul(bBlocks.get(i)) : bBlocks.get(i);
+
+        if(cache != null)
+          covers[i][a] = cache.getCover(common);
+        else
+        {
+          for(int f = 0; f < fBlocks.size(); f++)
+            if(common.isEmpty() || common.getBlockLe(fBlocks.get(f))) covers[i][a][f >>> 6] |= 1L << f;
+        }
+      }
+    });
+
+    IntStream.range(0, bBlocks.size()).parallel().forEach(i -> {
+      nextBlock: for(int j = 0; j < bBlocks.size(); j++)
+      {
+        for(int a = 0; a < aBlocks.size(); a++)
+          if(!intersects(covers[i][a], covers[j][a])) continue nextBlock;
+
+        rows[i][j >>> 6] |= 1L << j;
+      }
+    });
+  }
+
+  private CompatibilityGraph(long[][][] covers, long[][] rows)
+  {
+    this.covers = covers;
+    this.rows = rows;
+  }
+
+  /**
+   * Method creates the graph of blocks of B given in other order.
+   *
+   * @param order positions of blocks in this graph, in the new order (the block i of the new graph is the block order[i] of this graph)
+   * @return graph
+   */
+  CompatibilityGraph permute(int[] order)
+  {
+    long[][][] newCovers = new long[order.length][][];
+    long[][] newRows = new long[order.length][rows.length > 0 ? rows[0].length : 0];
+
+    for(int i = 0; i < order.length; i++)
+    {
+      newCovers[i] = covers[order[i]];
+      for(int j = 0; j < order.length; j++)
+        if((rows[order[i]][order[j] >>> 6] & (1L << order[j])) != 0) newRows[i][j >>> 6] |= 1L << j;
+    }
+
+    return new CompatibilityGraph(newCovers, newRows);
+  }
+
+  /**
+   * Method checks whether the sets of blocks have a common block.
+   *
+   * @param bits1 bits of the first set
+   * @param bits2 bits of the second set
+   * @return true, if there is a common block
+   */
+  static boolean intersects(long[] bits1, long[] bits2)
+  {
+    for(int w = 0; w < bits1.length; w++)
+      if((bits1[w] & bits2[w]) != 0) return true;
+    return false;
+  }
+}
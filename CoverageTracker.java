@@ -0,0 +1,209 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions;
+
+import decolib.blankets.Blanket;
+import decolib.blankets.Block;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tracks the block of blanket Q, built by summing blocks of blanket B, in the way which allows to check the relation
+ * (A x blockQ &lt;= F) for the newly summed block only. For each block of blanket A, the set of blocks of blanket F covering
+ * the common part of this block and blockQ is stored. The block summed with blockQ keeps the relation fulfilled, when each
+ * its non-empty common part with a block of A is included in some of blocks of F from the set stored for that block of A.
+ * For blanket B having many blocks, the compatibility graph of blocks of B is used: blocks incompatible with any block
+ * summed into blockQ are rejected at once, and sets of blocks of F are computed by the product of precomputed covers.
+ */
+final class CoverageTracker
+{
+  private final List<Block> aBlocks;  // Blocks of blanket A, or the single null when blanket A was not given (it is treated as a block of all terms).
+  private final List<Block> bBlocks;
+  private final List<Block> fBlocks;
+  private final long[][] coverage;    // coverage[i] = bits of blocks of blanket F, which include the common part of block i of blanket A and blockQ.
+  private final long[][] newCoverage; // Coverage computed by the last check, which is stored by commit.
+  private final boolean[] changed;
+  private final CompatibilityGraph graph;
+  private final CompatibilityCache cache;
+  private final long[] compatible;    // Bits of blocks of B compatible with all blocks summed into blockQ (used with the graph only).
+  private int checked = -1;           // Position of the block of B, for which the last check returned true.
+
+  /**
+   * @param A blanket, the first parameter (may be null)
+   * @param bBlocks blocks of blanket B, which might be summed into blockQ
+   * @param F blanket, the third parameter
+   */
+  CoverageTracker(Blanket A, List<Block> bBlocks, Blanket F)
+  {
+    this(A, bBlocks, F, null, null);
+  }
+
+  /**
+   * @param A blanket, the first parameter (may be null)
+   * @param bBlocks blocks of blanket B, which might be summed into blockQ
+   * @param F blanket, the third parameter
+   * @param graph compatibility graph of the given blocks of B, if null it is built for many blocks of B
+   * @param cache cache of covers of blocks for blanket F (may be null)
+   */
+  CoverageTracker(Blanket A, List<Block> bBlocks, Blanket F, CompatibilityGraph graph, CompatibilityCache cache)
+  {
+    this.aBlocks = getBlocks(A);
+    this.bBlocks = new ArrayList<>(bBlocks);
+    this.fBlocks = F.getBlocks();
+    coverage = new long[aBlocks.size()][(fBlocks.size() + 63) / 64];
+    newCoverage = new long[aBlocks.size()][(fBlocks.size() + 63) / 64];
+    changed = new boolean[aBlocks.size()];
+    this.graph = graph != null || bBlocks.size() < CompatibilityGraph.MIN_BLOCKS ? graph : new CompatibilityGraph(aBlocks, this.bBlocks, fBlocks, cache);
+    this.cache = cache;
+    compatible = new long[(bBlocks.size() + 63) / 64];
+
+    reset();
+  }
+
+  /**
+   * Method returns blocks of blanket A, the blanket not given is represented by the single null (the block of all terms).
+   *
+   * @param A blanket (may be null)
+   * @return blocks of blanket A
+   */
+  static List<Block> getBlocks(Blanket A)
+  {
+    return A != null ? A.getBlocks() : Collections.singletonList(null);
+  }
+
+  /**
+   * Method starts tracking of a new (empty) blockQ. Common parts of the empty block with blocks of A are empty, so they are included
+   * in all blocks of F.
+   */
+  void reset()
+  {
+    for(long[] row : coverage) setAll(row, fBlocks.size());
+    setAll(compatible, bBlocks.size());
+  }
+
+  // Method sets bits of the first "size" elements of the set.
+  private static void setAll(long[] bits, int size)
+  {
+    Arrays.fill(bits, -1L);
+    if(size % 64 != 0) bits[bits.length - 1] = -1L >>> (64 - size % 64);
+  }
+
+  /**
+   * Method checks whether the relation (A x (blockQ + block) &lt;= F) is fulfilled. The tracked blockQ is not changed, until
+   * the method "commit" is called.
+   *
+   * @param i position of the block of B, which might be summed with blockQ
+   * @return true, if the relation is fulfilled
+   */
+  boolean check(int i)
+  {
+    checked = -1;
+    if(graph != null)
+    {
+      if((compatible[i >>> 6] & (1L << i)) == 0) return false;  // The block is incompatible with a block already summed into blockQ.
+
+      for(int a = 0; a < aBlocks.size(); a++)
+      {
+        long[] cover = graph.covers[i][a];
+        boolean covered = false;
+        for(int w = 0; w < cover.length; w++)
+        {
+          newCoverage[a][w] = coverage[a][w] & cover[w];
+          if(newCoverage[a][w] != 0) covered = true;
+        }
+
+        if(!covered) return false;
+        changed[a] = true;
+      }
+    }
+    else
+    {
+      Block block = bBlocks.get(i);
+      for(int a = 0; a < aBlocks.size(); a++)
+      {
+        changed[a] = false;
+
+        Block blockA = aBlocks.get(a);
+        if(blockA != null && !blockA.hasBlockCommonPart(block)) continue;  // The common part with block of A doesn't change.
+
+        Block common = blockA != null ? blockA.getBlockMul(block) : block;
+        boolean covered = false;
+
+        if(cache != null)
+        {
+          long[] cover = cache.getCover(common);
+          for(int w = 0; w < cover.length; w++)
+          {
+            newCoverage[a][w] = coverage[a][w] & cover[w];
+            if(newCoverage[a][w] != 0) covered = true;
+          }
+        }
+        else
+        {
+          // Only blocks of F, which include the common part of the block of A and blockQ, are checked.
+          for(int w = 0; w < coverage[a].length; w++)
+          {
+            long bits = coverage[a][w];
+            long result = 0;
+            while(bits != 0)
+            {
+              int f = w * 64 + Long.numberOfTrailingZeros(bits);
+              if(common.getBlockLe(fBlocks.get(f))) result |= 1L << f;
+              bits &= bits - 1;
+            }
+
+            newCoverage[a][w] = result;
+            if(result != 0) covered = true;
+          }
+        }
+
+        if(!covered) return false;
+        changed[a] = true;
+      }
+    }
+
+    checked = i;
+    return true;
+  }
+
+  /**
+   * Method includes into the tracked blockQ the block, for which the last call of the method "check" returned true.
+   */
+  void commit()
+  {
+    for(int a = 0; a < aBlocks.size(); a++)
+    {
+      if(changed[a])
+      {
+        long[] row = coverage[a];
+        coverage[a] = newCoverage[a];
+        newCoverage[a] = row;
+      }
+    }
+
+    if(graph != null)
+      for(int w = 0; w < compatible.length; w++) compatible[w] &= graph.rows[checked][w];
+  }
+}
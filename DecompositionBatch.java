@@ -0,0 +1,232 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions;
+
+import decolib.blankets.Blanket;
+import decolib.decompositions.results.DecompositionBlankets;
+import decolib.decompositions.results.PrefilterCause;
+import decolib.decompositions.results.PrefilterResult;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Batch of decompositions, which are computed by the given executor. Decompositions of the batch share the cache of products of blankets
+ * and caches of covers of blocks, thus requests using the same input blankets (like the same blanket of binary inputs or the same output
+ * function) compute them once. Results are passed to the listener, as the decompositions are completed. Each request is checked by
+ * the prefilter (see DecompositionPrefilter) before its decomposition, so requests of not deterministic functions are rejected at once.
+ */
+public class DecompositionBatch
+{
+  /**
+   * Listener of results of decompositions. Calls of the listener are not concurrent.
+   */
+  @FunctionalInterface
+  public interface ResultListener
+  {
+    /**
+     * @param request number of the request, returned when the request was added
+     * @param decomposition blankets computed for decomposition (may be null, when the decomposition wasn't found)
+     */
+    void result(int request, DecompositionBlankets decomposition);
+  }
+
+  private final Executor executor;
+  private final BlanketCache blanketCache = new BlanketCache();
+  private final List<Function<DecompositionContext, DecompositionBlankets>> requests = new ArrayList<>();
+  private final List<Supplier<PrefilterResult>> prefilters = new ArrayList<>();
+  private PrefilterResult[] prefilterResults = new PrefilterResult[0];
+
+  private DecompositionBatch(Executor executor)
+  {
+    this.executor = executor;
+  }
+
+  /**
+   * Method creates the batch, which decompositions are computed in the common pool of threads.
+   *
+   * @return batch
+   */
+  public static DecompositionBatch create()
+  {
+    return new DecompositionBatch(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Method creates the batch, which decompositions are computed by the given executor.
+   *
+   * @param executor executor of decompositions
+   * @return batch
+   */
+  public static DecompositionBatch create(@NotNull Executor executor)
+  {
+    return new DecompositionBatch(executor);
+  }
+
+  /**
+   * Method adds the request of the parallel decomposition (see Decompositions.parallelDecomposition).
+   *
+   * @param I blanket for binary inputs (may be null)
+   * @param Q blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param G blanket for resulting function G, i.e. Y = G x H
+   * @param H blanket for resulting function H, i.e. Y = G x H
+   * @return number of the request
+   */
+  public int addParallelDecomposition(Blanket I, @NotNull Blanket Q, @NotNull Blanket G, @NotNull Blanket H)
+  {
+    return addRequest(() -> DecompositionPrefilter.checkParallelDecomposition(I, Q, G, H),
+                      context -> Decompositions.parallelDecomposition(I, Q, G, H, context));
+  }
+
+  /**
+   * Method adds the request of the parallel decomposition (see Decompositions.parallelDecomposition).
+   *
+   * @param Iv blanket for binary inputs for function G (may be null)
+   * @param Iu blanket for binary inputs for function H (may be null)
+   * @param Q blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param G blanket for resulting function G, i.e. Y = G x H
+   * @param H blanket for resulting function H, i.e. Y = G x H
+   * @return number of the request
+   */
+  public int addParallelDecomposition(Blanket Iv, Blanket Iu, @NotNull Blanket Q, @NotNull Blanket G, @NotNull Blanket H)
+  {
+    return addRequest(() -> DecompositionPrefilter.checkParallelDecomposition(Iv, Iu, Q, G, H),
+                      context -> Decompositions.parallelDecomposition(Iv, Iu, Q, G, H, context));
+  }
+
+  /**
+   * Method adds the request of the serial decomposition (see Decompositions.serialDecomposition).
+   *
+   * @param Iv                  blanket for binary inputs for function G (may be null)
+   * @param Iu                  blanket for binary inputs for function H (may be null)
+   * @param Q                   blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param Y                   blanket for output function Y.
+   * @param QvExpectedBlocksNum expected number of blocks in blanket Qv
+   * @param findMinimalG        if set to true the the algorithm try to find function G as minimal as possible
+   * @return number of the request
+   */
+  public int addSerialDecomposition(Blanket Iv, Blanket Iu, @NotNull Blanket Q, @NotNull Blanket Y, int QvExpectedBlocksNum, boolean findMinimalG)
+  {
+    int lutInputs = DecompositionOptions.create().getLutInputs();
+    return addRequest(() -> DecompositionPrefilter.checkSerialDecomposition(Iv, Iu, Q, Y, lutInputs),
+                      context -> Decompositions.serialDecomposition(Iv, Iu, Q, Y, QvExpectedBlocksNum, findMinimalG, context));
+  }
+
+  /**
+   * Method adds the request of the serial decomposition with the given options (see Decompositions.serialDecomposition), so requests
+   * for different LUT cells may be computed in one batch. The cache of the batch is used instead of the cache of options.
+   *
+   * @param Iv      blanket for binary inputs for function G (may be null)
+   * @param Iu      blanket for binary inputs for function H (may be null)
+   * @param Q       blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param Y       blanket for output function Y.
+   * @param options options of the decomposition
+   * @return number of the request
+   */
+  public int addSerialDecomposition(Blanket Iv, Blanket Iu, @NotNull Blanket Q, @NotNull Blanket Y, @NotNull DecompositionOptions options)
+  {
+    return addRequest(() -> DecompositionPrefilter.checkSerialDecomposition(Iv, Iu, Q, Y, options.getLutInputs()),
+                      context -> Decompositions.serialDecomposition(Iv, Iu, Q, Y, options, context));
+  }
+
+  private int addRequest(Supplier<PrefilterResult> prefilter, Function<DecompositionContext, DecompositionBlankets> request)
+  {
+    prefilters.add(prefilter);
+    requests.add(request);
+    return requests.size() - 1;
+  }
+
+  /**
+   * @return number of requests of the batch
+   */
+  public int getRequestsCount()
+  {
+    return requests.size();
+  }
+
+  /**
+   * Method returns the result of the prefilter of the request, computed by the last run of the batch. The request is rejected (its result
+   * is null), when its function isn't deterministic (PrefilterCause.NOT_DETERMINISTIC), for other causes the decomposition is computed.
+   *
+   * @param request number of the request, returned when the request was added
+   * @return result of the prefilter, or null when the request wasn't computed yet
+   */
+  public PrefilterResult getPrefilterResult(int request)
+  {
+    return request < prefilterResults.length ? prefilterResults[request] : null;
+  }
+
+  /**
+   * Method computes decompositions of all requests and passes results to the listener, in the order of completion. The method returns,
+   * when all decompositions are completed.
+   *
+   * @param listener listener of results
+   * @throws java.util.concurrent.CompletionException when any of decompositions failed (results of other decompositions are passed to the listener)
+   */
+  public void run(@NotNull ResultListener listener)
+  {
+    Object lock = new Object();
+    PrefilterResult[] prefilterResults = new PrefilterResult[requests.size()];
+    this.prefilterResults = prefilterResults;
+    CompletableFuture<?>[] futures = new CompletableFuture<?>[requests.size()];
+    for(int i = 0; i < requests.size(); i++)
+    {
+      int request = i;
+      futures[i] = CompletableFuture.supplyAsync(() ->
+      {
+        prefilterResults[request] = prefilters.get(request).get();
+        if(prefilterResults[request].cause == PrefilterCause.NOT_DETERMINISTIC) return null;
+
+        DecompositionContext context = DecompositionContext.create();
+        context.setBlanketCache(blanketCache);
+        return requests.get(request).apply(context);
+      }, executor).thenAccept(decomposition ->
+      {
+        synchronized(lock)
+        {
+          listener.result(request, decomposition);
+        }
+      });
+    }
+
+    CompletableFuture.allOf(futures).join();
+  }
+
+  /**
+   * Method computes decompositions of all requests.
+   *
+   * @return results in the order of requests
+   */
+  public List<DecompositionBlankets> run()
+  {
+    DecompositionBlankets[] results = new DecompositionBlankets[requests.size()];
+    run((request, decomposition) -> results[request] = decomposition);
+    return Arrays.asList(results);
+  }
+}
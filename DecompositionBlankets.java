@@ -30,6 +30,7 @@ import decolib.decompositions.DecompositionType;
 public class DecompositionBlankets
 {
   public DecompositionType type;                // Decomposition type, contained in this object.
+  public boolean partial;                       // Value "true" means that computations were stopped (deadline or cancellation) and the result is valid, but not minimal.
 
   // Input data for decomposition.
   public Blanket I;                             // The blanket for binary input, may be null.
@@ -59,6 +60,7 @@ public class DecompositionBlankets
 
     QvJoinedWithQu = false;
     QuJoinedWithQv = false;
+    partial = false;
 
     dependencyOfG = null;
     dependencyOfH = null;
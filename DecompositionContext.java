@@ -0,0 +1,175 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Context of the decomposition: allows to limit the time of computations, to cancel them (also from other thread) and to track
+ * their progress. Methods stopped by the context return the best result found so far, and mark the context as having
+ * the partial result.
+ */
+public class DecompositionContext
+{
+  /**
+   * Listener of the progress of computations.
+   */
+  @FunctionalInterface
+  public interface ProgressListener
+  {
+    /**
+     * @param done number of already processed elements (like blocks of blanket Q)
+     * @param total number of all elements
+     */
+    void progress(int done, int total);
+  }
+
+  private volatile boolean timeLimited = false;
+  private volatile long deadline;                   // deadline = value of System.nanoTime(), after which computations are stopped.
+  private volatile ProgressListener progressListener = null;
+  private final AtomicBoolean cancelled = new AtomicBoolean(false);
+  private final AtomicBoolean partial = new AtomicBoolean(false);
+  private volatile BlanketCache blanketCache = null;  // Cache of products of blankets, shared by decompositions of the batch.
+  private final DecompositionContext parent;          // Context of computations, which computations of this context are part of (may be null).
+
+  private DecompositionContext(DecompositionContext parent)
+  {
+    this.parent = parent;
+    if(parent != null) blanketCache = parent.getBlanketCache();
+  }
+
+  /**
+   * Method creates the context without time limit.
+   *
+   * @return context
+   */
+  public static DecompositionContext create()
+  {
+    return new DecompositionContext(null);
+  }
+
+  /**
+   * Method creates the context for a part of computations of the given context: it is stopped, when the given context is stopped,
+   * and it passes the progress (if it has no listener) and the partial result to the given context. The time limit and the cache
+   * (initially the cache of the given context) may be set without changing the given context.
+   *
+   * @param parent context of computations
+   * @return context
+   */
+  static DecompositionContext createChild(DecompositionContext parent)
+  {
+    return new DecompositionContext(parent);
+  }
+
+  /**
+   * Method creates the context for a part of computations of the given context (see "createChild"), having the cache of the given context,
+   * or the new cache, if the given context has no cache. Thus many decompositions share the cache without changing the given context.
+   *
+   * @param parent context of computations
+   * @return context
+   */
+  static DecompositionContext createChildWithCache(DecompositionContext parent)
+  {
+    DecompositionContext context = new DecompositionContext(parent);
+    if(context.getBlanketCache() == null) context.setBlanketCache(new BlanketCache());
+    return context;
+  }
+
+  /**
+   * Method sets the time limit of computations, counted from now.
+   *
+   * @param timeLimit time limit in milliseconds
+   * @return this context
+   */
+  public DecompositionContext setTimeLimit(long timeLimit)
+  {
+    deadline = System.nanoTime() + timeLimit * 1_000_000L;
+    timeLimited = true;
+    return this;
+  }
+
+  /**
+   * Method sets the listener of the progress of computations.
+   *
+   * @param progressListener listener (may be null)
+   * @return this context
+   */
+  public DecompositionContext setProgressListener(ProgressListener progressListener)
+  {
+    this.progressListener = progressListener;
+    return this;
+  }
+
+  /**
+   * Method cancels computations using this context.
+   */
+  public void cancel()
+  {
+    cancelled.set(true);
+  }
+
+  public boolean isCancelled()
+  {
+    return cancelled.get() || (parent != null && parent.isCancelled());
+  }
+
+  /**
+   * Method checks whether computations should be stopped, because they were cancelled or the time limit expired.
+   *
+   * @return true, if computations should be stopped
+   */
+  public boolean isStopped()
+  {
+    return cancelled.get() || (timeLimited && System.nanoTime() - deadline > 0) || (parent != null && parent.isStopped());
+  }
+
+  /**
+   * @return true, if any of computations using this context was stopped and returned the partial result
+   */
+  public boolean isPartial()
+  {
+    return partial.get();
+  }
+
+  void markPartial()
+  {
+    partial.set(true);
+    if(parent != null) parent.markPartial();
+  }
+
+  void setBlanketCache(BlanketCache blanketCache)
+  {
+    this.blanketCache = blanketCache;
+  }
+
+  BlanketCache getBlanketCache()
+  {
+    return blanketCache;
+  }
+
+  void progress(int done, int total)
+  {
+    ProgressListener listener = progressListener;
+    if(listener != null) listener.progress(done, total);
+    else if(parent != null) parent.progress(done, total);
+  }
+}
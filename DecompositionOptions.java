@@ -0,0 +1,260 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Immutable options of decompositions: the number of inputs of LUT cell, parameters of the serial decomposition, the parallelism,
+ * the cache and the time limit of computations. Options are given to each call, so decompositions for different LUT cells may be
+ * computed concurrently. Methods "with..." return the copy of options with the changed value.
+ */
+public final class DecompositionOptions
+{
+  private final int lutInputs;
+  private final int QvExpectedBlocksNum;
+  private final boolean findMinimalG;
+  private final int beamWidth;
+  private final boolean refinement;
+  private final ForkJoinPool pool;  // Pool of "parallelism" threads, shared by copies of options (null means the common pool).
+  private final BlanketCache blanketCache;
+  private final long timeLimit;
+
+  private DecompositionOptions(int lutInputs, int QvExpectedBlocksNum, boolean findMinimalG, int beamWidth, boolean refinement, ForkJoinPool pool,
+                               BlanketCache blanketCache, long timeLimit)
+  {
+    this.lutInputs = lutInputs;
+    this.QvExpectedBlocksNum = QvExpectedBlocksNum;
+    this.findMinimalG = findMinimalG;
+    this.beamWidth = beamWidth;
+    this.refinement = refinement;
+    this.pool = pool;
+    this.blanketCache = blanketCache;
+    this.timeLimit = timeLimit;
+  }
+
+  /**
+   * Method creates default options: LUT cell of 4 inputs, the automatic number of blocks of blanket Qv, the greedy algorithm
+   * of the serial decomposition with the refinement, the common pool of threads, without the cache and the time limit.
+   *
+   * @return options
+   */
+  public static DecompositionOptions create()
+  {
+    return new DecompositionOptions(4, 0, false, 1, true, null, null, 0);
+  }
+
+  /**
+   * @param lutInputs number of inputs of LUT cell
+   * @return copy of options with the given value
+   * @throws IllegalArgumentException when lutInputs is less than 1
+   */
+  public DecompositionOptions withLutInputs(int lutInputs)
+  {
+    if(lutInputs < 1) throw new IllegalArgumentException(String.format("Number of inputs of LUT cell should be positive, given %s", lutInputs));
+
+    return new DecompositionOptions(lutInputs, QvExpectedBlocksNum, findMinimalG, beamWidth, refinement, pool, blanketCache, timeLimit);
+  }
+
+  /**
+   * @param QvExpectedBlocksNum expected number of blocks in blanket Qv of the serial decomposition (0 means the number computed
+   *                            for the number of inputs of LUT cell)
+   * @return copy of options with the given value
+   * @throws IllegalArgumentException when QvExpectedBlocksNum is negative
+   */
+  public DecompositionOptions withQvExpectedBlocksNum(int QvExpectedBlocksNum)
+  {
+    if(QvExpectedBlocksNum < 0) throw new IllegalArgumentException(String.format("Expected number of blocks should not be negative, given %s", QvExpectedBlocksNum));
+
+    return new DecompositionOptions(lutInputs, QvExpectedBlocksNum, findMinimalG, beamWidth, refinement, pool, blanketCache, timeLimit);
+  }
+
+  /**
+   * @param findMinimalG if set to true the the serial decomposition try to find function G as minimal as possible
+   * @return copy of options with the given value
+   */
+  public DecompositionOptions withFindMinimalG(boolean findMinimalG)
+  {
+    return new DecompositionOptions(lutInputs, QvExpectedBlocksNum, findMinimalG, beamWidth, refinement, pool, blanketCache, timeLimit);
+  }
+
+  /**
+   * @param beamWidth number of partial results kept in each step of the serial decomposition (the value 1 means the greedy algorithm)
+   * @return copy of options with the given value
+   * @throws IllegalArgumentException when beamWidth is less than 1
+   */
+  public DecompositionOptions withBeamWidth(int beamWidth)
+  {
+    if(beamWidth < 1) throw new IllegalArgumentException(String.format("Beam width should be positive, given %s", beamWidth));
+
+    return new DecompositionOptions(lutInputs, QvExpectedBlocksNum, findMinimalG, beamWidth, refinement, pool, blanketCache, timeLimit);
+  }
+
+  /**
+   * @param refinement if set to true, for blanket Q having up to Decompositions.EXACT_Q_BLOCKS blocks the result of the serial decomposition
+   *                   is refined for the found blanket Qv by the search of blankets G and Qu having the fewest blocks (it is a local
+   *                   refinement, other blankets Qv aren't checked), otherwise the result of the greedy algorithm is returned
+   * @return copy of options with the given value
+   */
+  public DecompositionOptions withRefinement(boolean refinement)
+  {
+    return new DecompositionOptions(lutInputs, QvExpectedBlocksNum, findMinimalG, beamWidth, refinement, pool, blanketCache, timeLimit);
+  }
+
+  /**
+   * @param parallelism number of threads of the pool computing the decomposition (0 means the common pool of threads), the pool is created
+   *                    once and shared by all decompositions using the returned options (its idle threads are ended by the pool)
+   * @return copy of options with the given value
+   * @throws IllegalArgumentException when parallelism is negative
+   */
+  public DecompositionOptions withParallelism(int parallelism)
+  {
+    if(parallelism < 0) throw new IllegalArgumentException(String.format("Parallelism should not be negative, given %s", parallelism));
+
+    ForkJoinPool newPool = parallelism == getParallelism() ? pool : (parallelism > 0 ? new ForkJoinPool(parallelism) : null);
+    return new DecompositionOptions(lutInputs, QvExpectedBlocksNum, findMinimalG, beamWidth, refinement, newPool, blanketCache, timeLimit);
+  }
+
+  /**
+   * @param cache if true, the returned options have the new cache of products of blankets, shared by all decompositions using
+   *              these options (also concurrent ones), otherwise they have no cache
+   * @return copy of options with the given value
+   */
+  public DecompositionOptions withCache(boolean cache)
+  {
+    return new DecompositionOptions(lutInputs, QvExpectedBlocksNum, findMinimalG, beamWidth, refinement, pool, cache ? new BlanketCache() : null, timeLimit);
+  }
+
+  /**
+   * @param timeLimit time limit of each decomposition in milliseconds, counted from its start (0 means no limit)
+   * @return copy of options with the given value
+   * @throws IllegalArgumentException when timeLimit is negative
+   */
+  public DecompositionOptions withTimeLimit(long timeLimit)
+  {
+    if(timeLimit < 0) throw new IllegalArgumentException(String.format("Time limit should not be negative, given %s", timeLimit));
+
+    return new DecompositionOptions(lutInputs, QvExpectedBlocksNum, findMinimalG, beamWidth, refinement, pool, blanketCache, timeLimit);
+  }
+
+  public int getLutInputs()
+  {
+    return lutInputs;
+  }
+
+  public int getQvExpectedBlocksNum()
+  {
+    return QvExpectedBlocksNum;
+  }
+
+  public boolean isFindMinimalG()
+  {
+    return findMinimalG;
+  }
+
+  public int getBeamWidth()
+  {
+    return beamWidth;
+  }
+
+  public boolean isRefinement()
+  {
+    return refinement;
+  }
+
+  public int getParallelism()
+  {
+    return pool != null ? pool.getParallelism() : 0;
+  }
+
+  public boolean hasCache()
+  {
+    return blanketCache != null;
+  }
+
+  public long getTimeLimit()
+  {
+    return timeLimit;
+  }
+
+  /**
+   * Method runs the computation in the context created for it, which is a part of the given context (see DecompositionContext.createChild):
+   * it has the time limit of options (counted from now) and the cache of options, if the given context has no cache. The given context isn't
+   * changed. The computation is run in the pool of "parallelism" threads (parallel streams of the computation use that pool).
+   *
+   * @param context context of computations
+   * @param computation computation using the created context
+   * @param <T> type of the result
+   * @return result of the computation
+   */
+  <T> T run(DecompositionContext context, Function<DecompositionContext, T> computation)
+  {
+    DecompositionContext runContext = createRunContext(context);
+    if(pool == null) return computation.apply(runContext);
+
+    return pool.submit(() -> computation.apply(runContext)).join();
+  }
+
+  /**
+   * Method creates the iterator in the context created for it (see "run"), the time limit is counted from now. Elements of the iterator
+   * are computed in the pool of "parallelism" threads, when they are requested.
+   *
+   * @param context context of computations
+   * @param iterator function creating the iterator using the created context
+   * @param <T> type of elements
+   * @return iterator
+   */
+  <T> Iterator<T> iterate(DecompositionContext context, Function<DecompositionContext, Iterator<T>> iterator)
+  {
+    Iterator<T> runIterator = iterator.apply(createRunContext(context));
+    if(pool == null) return runIterator;
+
+    return new Iterator<T>()
+    {
+      @Override
+      public boolean hasNext()
+      {
+        return pool.submit(runIterator::hasNext).join();
+      }
+
+      @Override
+      public T next()
+      {
+        if(!hasNext()) throw new NoSuchElementException();
+
+        return runIterator.next();
+      }
+    };
+  }
+
+  // Method creates the context being a part of the given one, having the time limit and the cache of options.
+  private DecompositionContext createRunContext(DecompositionContext context)
+  {
+    DecompositionContext runContext = DecompositionContext.createChild(context);
+    if(runContext.getBlanketCache() == null) runContext.setBlanketCache(blanketCache);
+    if(timeLimit > 0) runContext.setTimeLimit(timeLimit);
+    return runContext;
+  }
+}
@@ -0,0 +1,198 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions;
+
+import decolib.blankets.Blanket;
+import decolib.blankets.Block;
+import decolib.decompositions.results.PrefilterCause;
+import decolib.decompositions.results.PrefilterResult;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Contains prefilters of decompositions, which check cheap necessary conditions before the decomposition is computed, so hopeless
+ * requests (e.g. in large batches) are rejected without computing products of blankets:
+ * - the relation (I x Q) &lt;= Y is checked for blocks of the product including sampled terms only, i.e. for each sampled term the common
+ *   part of blocks of inputs including this term should be included in a block of each output blanket,
+ * - for the serial decomposition, lower bounds of numbers of binary inputs of functions G and H are compared with the number of inputs
+ *   of LUT cell: G has inputs Iv and Qv, H has inputs Iu, G and Qu, and encoding of blankets Qv and Qu needs at least as many bits
+ *   as encoding of blanket Q (Qv x Qu = Q).
+ */
+public class DecompositionPrefilter
+{
+  static final int SAMPLE_TERMS = 32;  // Number of terms sampled for checking of the relation (I x Q) <= Y.
+
+  /**
+   * Method checks necessary conditions of the parallel decomposition (see Decompositions.parallelDecomposition).
+   *
+   * @param I blanket for binary inputs (may be null)
+   * @param Q blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param G blanket for resulting function G, i.e. Y = G x H
+   * @param H blanket for resulting function H, i.e. Y = G x H
+   * @return result of the prefilter
+   */
+  public static PrefilterResult checkParallelDecomposition(Blanket I, @NotNull Blanket Q, @NotNull Blanket G, @NotNull Blanket H)
+  {
+    return createResult(findNotDeterministicTerm(new Blanket[] {I, Q}, new Blanket[] {G, H}));
+  }
+
+  /**
+   * Method checks necessary conditions of the parallel decomposition (see Decompositions.parallelDecomposition).
+   *
+   * @param Iv blanket for binary inputs for function G (may be null)
+   * @param Iu blanket for binary inputs for function H (may be null)
+   * @param Q blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param G blanket for resulting function G, i.e. Y = G x H
+   * @param H blanket for resulting function H, i.e. Y = G x H
+   * @return result of the prefilter
+   */
+  public static PrefilterResult checkParallelDecomposition(Blanket Iv, Blanket Iu, @NotNull Blanket Q, @NotNull Blanket G, @NotNull Blanket H)
+  {
+    return createResult(findNotDeterministicTerm(new Blanket[] {Iv, Iu, Q}, new Blanket[] {G, H}));
+  }
+
+  /**
+   * Method checks necessary conditions of the serial decomposition (see Decompositions.serialDecomposition). The request, for which
+   * the function is deterministic, but functions G or H can't fit LUT cells, isn't passed, however the decomposition exists.
+   *
+   * @param Iv        blanket for binary inputs for function G (may be null)
+   * @param Iu        blanket for binary inputs for function H (may be null)
+   * @param Q         blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param Y         blanket for output function Y.
+   * @param lutInputs number of inputs of LUT cell
+   * @return result of the prefilter
+   * @throws IllegalArgumentException when lutInputs is less than 1
+   */
+  public static PrefilterResult checkSerialDecomposition(Blanket Iv, Blanket Iu, @NotNull Blanket Q, @NotNull Blanket Y, int lutInputs)
+  {
+    if(lutInputs < 1) throw new IllegalArgumentException(String.format("Number of inputs of LUT cell should be positive, given %s", lutInputs));
+
+    PrefilterResult result = createResult(findNotDeterministicTerm(new Blanket[] {Iv, Iu, Q}, new Blanket[] {Y}));
+
+    // Function G has at least inputs Iv (blanket Qv may have one block). When G fits LUT cell, blanket Qv is encoded by at most (lutInputs - bits(Iv))
+    // bits, so blanket Qu is encoded by at least (bits(Q) - lutInputs + bits(Iv)) bits.
+    result.GInputsLowerBound = bits(Iv);
+    result.HInputsLowerBound = bits(Iu) + Math.max(0, bits(Q) - Math.max(0, lutInputs - bits(Iv)));
+
+    if(result.passed && result.GInputsLowerBound > lutInputs)
+    {
+      result.passed = false;
+      result.cause = PrefilterCause.G_EXCEEDS_LUT;
+    }
+
+    if(result.passed && result.HInputsLowerBound > lutInputs)
+    {
+      result.passed = false;
+      result.cause = PrefilterCause.H_EXCEEDS_LUT;
+    }
+
+    return result;
+  }
+
+  private static PrefilterResult createResult(int term)
+  {
+    PrefilterResult result = PrefilterResult.create();
+    if(term >= 0)
+    {
+      result.passed = false;
+      result.cause = PrefilterCause.NOT_DETERMINISTIC;
+      result.term = term;
+    }
+
+    return result;
+  }
+
+  // Number of bits encoding blocks of the blanket (the blanket not given or having one block isn't encoded).
+  private static int bits(Blanket A)
+  {
+    return A != null && A.getBlocksCount() > 1 ? DecompositionsTools.encodingBitsCount(A.getBlocksCount()) : 0;
+  }
+
+  /**
+   * Method checks the relation (A1 x A2 x ...) &lt;= F for sampled terms of the last input blanket: the common part of blocks of inputs including
+   * the sampled term (the block of the product) should be included in a block of each blanket F. Terms not included in blocks of all inputs
+   * are skipped. The check needs no products of blankets, and when it fails the relation isn't fulfilled (for all blankets F, i.e. for their
+   * product too).
+   *
+   * @param inputs input blankets (null values are skipped), the last one is not null
+   * @param outputs output blankets
+   * @return the sampled term, for which the relation isn't fulfilled, or -1
+   */
+  static int findNotDeterministicTerm(Blanket[] inputs, Blanket[] outputs)
+  {
+    List<Block> lastBlocks = inputs[inputs.length - 1].getBlocks();
+    int minTerm = lastBlocks.stream().mapToInt(Block::getMinTerm).min().orElse(Integer.MAX_VALUE);
+    int maxTerm = lastBlocks.stream().mapToInt(Block::getMaxTerm).max().orElse(-1);
+    if(minTerm > maxTerm) return -1;
+
+    int samples = (int)Math.min(SAMPLE_TERMS, (long)maxTerm - minTerm + 1);
+    for(int i = 0; i < samples; i++)
+    {
+      int term = samples > 1 ? (int)(minTerm + (long)i * (maxTerm - minTerm) / (samples - 1)) : minTerm;
+      Block point = Block.createFromRanges("", term, term);
+
+      Block common = null;
+      for(Blanket input : inputs)
+      {
+        if(input == null) continue;
+
+        Block block = findBlock(input, point);
+        if(block == null)
+        {
+          common = null;
+          break;
+        }
+
+        common = common == null ? block : common.getBlockMul(block);
+      }
+
+      if(common == null) continue;  // The term isn't included in blocks of all inputs.
+
+      for(Blanket output : outputs)
+      {
+        boolean included = false;
+        for(Block block : output.getBlocks())
+        {
+          if(common.getBlockLe(block))
+          {
+            included = true;
+            break;
+          }
+        }
+
+        if(!included) return term;
+      }
+    }
+
+    return -1;
+  }
+
+  // Method returns the first block of the blanket including the term (given as the block), or null.
+  private static Block findBlock(Blanket A, Block point)
+  {
+    for(Block block : A.getBlocks())
+      if(block.hasBlockCommonPart(point)) return block;
+
+    return null;
+  }
+}
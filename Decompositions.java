@@ -22,19 +22,44 @@
 package decolib.decompositions;
 
 import decolib.blankets.Blanket;
+import decolib.blankets.BlanketProduct;
 import decolib.blankets.Block;
 import decolib.decompositions.results.DecompositionBlankets;
 import decolib.decompositions.results.FunctionsDependencyType;
+import decolib.decompositions.results.InputSplit;
+import decolib.decompositions.results.LutNetwork;
+import decolib.decompositions.results.OutputSplit;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Contains decomposition methods for LUT based devices: parallel decomposition and serial one.
  */
 public class Decompositions
 {
-  public static int LUT_INPUTS = 4;  // Number of inputs in LUT cell.
+  /**
+   * Number of inputs in LUT cell of methods without options.
+   *
+   * @deprecated methods without options use the default options (DecompositionOptions.create()), the number of inputs of LUT cell
+   * should be given by DecompositionOptions.withLutInputs
+   */
+  @Deprecated
+  public static final int LUT_INPUTS = 4;
+  private static final DecompositionOptions DEFAULT_OPTIONS = DecompositionOptions.create();  // Options of methods without options.
+  public static final int EXACT_Q_BLOCKS = QuPartitionSolver.MAX_BLOCKS;  // Maximal number of blocks of blanket Q, for which the result of serial decomposition is refined.
 
   /**
    * Method finds the parallel decomposition of function Y = F(X), where X represents binary (I) and multiple-valued inputs (Q), i.e. X = I u Q.
@@ -51,51 +76,83 @@ public class Decompositions
    */
   public static DecompositionBlankets parallelDecomposition(Blanket I, @NotNull Blanket Q, @NotNull Blanket G, @NotNull Blanket H)
   {
+    return parallelDecomposition(I, Q, G, H, DecompositionContext.create());
+  }
+
+  /**
+   * Method finds the parallel decomposition of function Y = F(X), where X represents binary (I) and multiple-valued inputs (Q), i.e. X = I u Q.
+   * The following results may be obtained:
+   * - dis-joint decomposition: Yg = G(V), Yh = H(U), where V u U = X and Yh u Yh = Y,
+   * - joint decomposition: Yg = G(V,U), Yh = H(V) or Yg = G(V), Yh = H(V,U), where V u U = X and Yh u Yh = Y.
+   * Method requires to have provided the initial split of output function Y.
+   *
+   * @param I blanket for binary inputs (may be null)
+   * @param Q blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param G blanket for resulting function G, i.e. Y = G x H
+   * @param H blanket for resulting function H, i.e. Y = G x H
+   * @param context context of computations, which allows to stop them - then the partial result is returned (the field "partial" is set)
+   * @return blankets computed for decomposition
+   */
+  public static DecompositionBlankets parallelDecomposition(Blanket I, @NotNull Blanket Q, @NotNull Blanket G, @NotNull Blanket H, @NotNull DecompositionContext context)
+  {
+    // The check of sampled terms rejects most of not deterministic functions without computing products of blankets.
+    if(DecompositionPrefilter.findNotDeterministicTerm(new Blanket[] {I, Q}, new Blanket[] {G, H}) >= 0) return null;
+
+    // Relations of variants of decomposition are computed once, together with the product I x Q (computed only when no simpler relation is fulfilled).
+    // Relations I <= F and Q <= F give (I x Q) <= F, and the relation (I x Q) <= (G x H) is fulfilled, when (I x Q) <= G and (I x Q) <= H.
+    ParallelProducts products = new ParallelProducts(I, null, Q, context);
+    boolean ILeG = I != null && I.BleB(G);
+    boolean QLeG = !ILeG && Q.BleB(G);  // Checked only when I <= G isn't fulfilled (as the variant Q <= G).
+    boolean IQLeG = ILeG || QLeG || (I != null && products.getIQ().BleB(G));
+    boolean ILeH = I != null && I.BleB(H);
+    boolean QLeH = !ILeH && Q.BleB(H);  // Checked only when I <= H isn't fulfilled (as the variant Q <= H).
+    boolean IQLeH = ILeH || QLeH || (I != null && IQLeG && products.getIQ().BleB(H));
+
     // Checking whether the function is deterministic one and may be decomposed, i.e. the relation (I x Q) <= (G x H) is fulfilled.
-    if((I == null && Q.BleB(G.BxB(H, false))) || (I != null && I.BxB(Q, false).BleB(G.BxB(H, false))))
+    if(IQLeG && IQLeH)
     {
       DecompositionBlankets decomposition = DecompositionBlankets.create();
 
       // Decomposition variant: I <= G
-      if(I != null && I.BleB(G))
+      if(ILeG)
         decomposition.dependencyOfG = FunctionsDependencyType.DEPENDS_ON_I;
 
       // Decomposition variant: Q <= G
-      if(decomposition.dependencyOfG == null && Q.BleB(G))
+      if(decomposition.dependencyOfG == null && QLeG)
       {
-        decomposition.Qv = DecompositionsHelpers.generateMinimalBlanket(Q, Q, G);
+        decomposition.Qv = DecompositionsHelpers.generateMinimalBlanket(Q, Q, G, context);
         decomposition.dependencyOfG = FunctionsDependencyType.DEPENDS_ON_Q;
       }
 
       // Decomposition variant: I x Q <= G
-      if(decomposition.dependencyOfG == null && I != null && I.BxB(Q, false).BleB(G))
+      if(decomposition.dependencyOfG == null && I != null && IQLeG)
       {
-        decomposition.Qv = DecompositionsHelpers.generateMinimalBlanket(I, Q, G);
+        decomposition.Qv = DecompositionsHelpers.generateMinimalBlanket(I, Q, G, context);
         decomposition.dependencyOfG = FunctionsDependencyType.DEPENDS_ON_I_AND_Q;
       }
 
       // Decomposition variant: I <= H
-      if(I != null && I.BleB(H))
+      if(ILeH)
         decomposition.dependencyOfH = FunctionsDependencyType.DEPENDS_ON_I;
 
       // Decomposition variant: Q <= H
-      if(decomposition.dependencyOfH == null && Q.BleB(H))
+      if(decomposition.dependencyOfH == null && QLeH)
       {
         if(decomposition.dependencyOfG == FunctionsDependencyType.DEPENDS_ON_I)
-          decomposition.Qu = DecompositionsHelpers.generateMinimalBlanket(Q, Q, H);
+          decomposition.Qu = DecompositionsHelpers.generateMinimalBlanket(Q, Q, H, context);
         else
-          decomposition.Qu = DecompositionsHelpers.generateMinimalBlanket(Q, Q, decomposition.Qv, H);
+          decomposition.Qu = DecompositionsHelpers.generateMinimalBlanket(Q, Q, decomposition.Qv, H, context);
 
         decomposition.dependencyOfG = FunctionsDependencyType.DEPENDS_ON_Q;
       }
 
       // Decomposition variant: I x Q <= H
-      if(decomposition.dependencyOfH == null && I != null && I.BxB(Q, false).BleB(H))
+      if(decomposition.dependencyOfH == null && I != null && IQLeH)
       {
         if(decomposition.dependencyOfG == FunctionsDependencyType.DEPENDS_ON_I)
-          decomposition.Qu = DecompositionsHelpers.generateMinimalBlanket(I, Q, H);
+          decomposition.Qu = DecompositionsHelpers.generateMinimalBlanket(I, Q, H, context);
         else
-          decomposition.Qu = DecompositionsHelpers.generateMinimalBlanket(I, Q, decomposition.Qv, H);
+          decomposition.Qu = DecompositionsHelpers.generateMinimalBlanket(I, Q, decomposition.Qv, H, context);
 
         decomposition.dependencyOfH = FunctionsDependencyType.DEPENDS_ON_I_AND_Q;
       }
@@ -105,14 +162,14 @@ public class Decompositions
       {
         if(decomposition.Qv.BleB(decomposition.Qu))
         {
-          decomposition.QvPartial = DecompositionsHelpers.generateMinimalBlanket(decomposition.Qu, decomposition.Qv, decomposition.Qv);
+          decomposition.QvPartial = DecompositionsHelpers.generateMinimalBlanket(decomposition.Qu, decomposition.Qv, decomposition.Qv, context);
           if(decomposition.QvPartial != null && decomposition.QvPartial.getBlocksCount() == 1) decomposition.QvPartial = null;  // It means that Qv = Qu.
           decomposition.QvJoinedWithQu = true;
         }
         else
           if(decomposition.Qu.BleB(decomposition.Qv))
           {
-            decomposition.QuPartial = DecompositionsHelpers.generateMinimalBlanket(decomposition.Qv, decomposition.Qu, decomposition.Qu);
+            decomposition.QuPartial = DecompositionsHelpers.generateMinimalBlanket(decomposition.Qv, decomposition.Qu, decomposition.Qu, context);
             if(decomposition.QuPartial != null && decomposition.QuPartial.getBlocksCount() == 1) decomposition.QuPartial = null;  // It means that Qv = Qu.
             decomposition.QuJoinedWithQv = true;
           }
@@ -120,6 +177,7 @@ public class Decompositions
 
       // Post-processing.
       decomposition.type = DecompositionType.PARALLEL_Q;
+      decomposition.partial = context.isPartial();
       decomposition.I = I;
       decomposition.Q = Q;
       decomposition.G = G;
@@ -151,52 +209,87 @@ public class Decompositions
    */
   public static DecompositionBlankets parallelDecomposition(Blanket Iv, Blanket Iu, @NotNull Blanket Q, @NotNull Blanket G, @NotNull Blanket H)
   {
+    return parallelDecomposition(Iv, Iu, Q, G, H, DecompositionContext.create());
+  }
+
+  /**
+   * Method finds the parallel decomposition of function Y = F(X), where X represents binary (Iv and Iu) and multiple-valued inputs (Q), i.e. X = Iv u Iu u Q.
+   * The following results may be obtained:
+   * - dis-joint decomposition: Yg = G(Iv,V), Yh = H(Iu,U), where V u U = Q and Yh u Yh = Y,
+   * - joint decomposition: Yg = G(Iv,V,U), Yh = H(Iu,V) or Yg = G(Iv,V), Yh = H(Iu,V,U), where V u U = Q and Yh u Yh = Y.
+   * Method requires to have provided the initial split of output function Y.
+   *
+   * @param Iv blanket for binary inputs for function G (may be null)
+   * @param Iu blanket for binary inputs for function H (may be null)
+   * @param Q blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param G blanket for resulting function G, i.e. Y = G x H
+   * @param H blanket for resulting function H, i.e. Y = G x H
+   * @param context context of computations, which allows to stop them - then the partial result is returned (the field "partial" is set)
+   * @return blankets computed for decomposition
+   */
+  public static DecompositionBlankets parallelDecomposition(Blanket Iv, Blanket Iu, @NotNull Blanket Q, @NotNull Blanket G, @NotNull Blanket H, @NotNull DecompositionContext context)
+  {
+    // The check of sampled terms rejects most of not deterministic functions without computing products of blankets.
+    if(DecompositionPrefilter.findNotDeterministicTerm(new Blanket[] {Iv, Iu, Q}, new Blanket[] {G, H}) >= 0) return null;
+
+    // Relations of variants of decomposition are computed once, together with products Iv x Q, Iu x Q and I x Q = (Iv x Q) x Iu (computed only when
+    // no simpler relation is fulfilled). Relations Iv <= G, Q <= G and (Iv x Q) <= G give (I x Q) <= G, and the relation (I x Q) <= (G x H) is fulfilled,
+    // when (I x Q) <= G and (I x Q) <= H.
+    ParallelProducts products = new ParallelProducts(Iv, Iu, Q, context);
+    boolean IvLeG = Iv != null && Iv.BleB(G);
+    boolean QLeG = !IvLeG && Q.BleB(G);  // Checked only when Iv <= G isn't fulfilled (as the variant Q <= G).
+    boolean IvQLeG = IvLeG || QLeG || (Iv != null && products.getIvQ().BleB(G));
+    boolean IQLeG = IvQLeG || (Iu != null && products.getIQ().BleB(G));
+    boolean IuLeH = Iu != null && Iu.BleB(H);
+    boolean QLeH = !IuLeH && Q.BleB(H);  // Checked only when Iu <= H isn't fulfilled (as the variant Q <= H).
+    boolean IuQLeH = IuLeH || QLeH || (Iu != null && IQLeG && products.getIuQ().BleB(H));
+    boolean IQLeH = IuQLeH || (Iv != null && IQLeG && products.getIQ().BleB(H));
+
     // Checking whether the function is deterministic one and may be decomposed, i.e. the relation (I x Q) <= (G x H) is fulfilled.
-    Blanket I = Iv == null ? Iu : Iv.BxB(Iu);
-    if((I == null && Q.BleB(G.BxB(H, false))) || (I != null && I.BxB(Q, false).BleB(G.BxB(H, false))))
+    if(IQLeG && IQLeH)
     {
       DecompositionBlankets decomposition = DecompositionBlankets.create();
 
       // Decomposition variant: Iv <= G
-      if(Iv != null && Iv.BleB(G))
+      if(IvLeG)
         decomposition.dependencyOfG = FunctionsDependencyType.DEPENDS_ON_I;
 
       // Decomposition variant: Q <= G
-      if(decomposition.dependencyOfG == null && Q.BleB(G))
+      if(decomposition.dependencyOfG == null && QLeG)
       {
-        decomposition.Qv = DecompositionsHelpers.generateMinimalBlanket(Q, Q, G);
+        decomposition.Qv = DecompositionsHelpers.generateMinimalBlanket(Q, Q, G, context);
         decomposition.dependencyOfG = FunctionsDependencyType.DEPENDS_ON_Q;
       }
 
       // Decomposition variant: Iv x Q <= G
-      if(decomposition.dependencyOfG == null && Iv != null && Iv.BxB(Q, false).BleB(G))
+      if(decomposition.dependencyOfG == null && Iv != null && IvQLeG)
       {
-        decomposition.Qv = DecompositionsHelpers.generateMinimalBlanket(Iv, Q, G);
+        decomposition.Qv = DecompositionsHelpers.generateMinimalBlanket(Iv, Q, G, context);
         decomposition.dependencyOfG = FunctionsDependencyType.DEPENDS_ON_I_AND_Q;
       }
 
       // Decomposition variant: Iu <= H
-      if(Iu != null && Iu.BleB(H))
+      if(IuLeH)
         decomposition.dependencyOfH = FunctionsDependencyType.DEPENDS_ON_I;
 
       // Decomposition variant: Q <= H
-      if(decomposition.dependencyOfH == null && Q.BleB(H))
+      if(decomposition.dependencyOfH == null && QLeH)
       {
         if(decomposition.dependencyOfG == FunctionsDependencyType.DEPENDS_ON_I)
-          decomposition.Qu = DecompositionsHelpers.generateMinimalBlanket(Q, Q, H);
+          decomposition.Qu = DecompositionsHelpers.generateMinimalBlanket(Q, Q, H, context);
         else
-          decomposition.Qu = DecompositionsHelpers.generateMinimalBlanket(Q, Q, decomposition.Qv, H);
+          decomposition.Qu = DecompositionsHelpers.generateMinimalBlanket(Q, Q, decomposition.Qv, H, context);
 
         decomposition.dependencyOfG = FunctionsDependencyType.DEPENDS_ON_Q;
       }
 
       // Decomposition variant: Iu x Q <= H
-      if(decomposition.dependencyOfH == null && Iu != null && Iu.BxB(Q, false).BleB(H))
+      if(decomposition.dependencyOfH == null && Iu != null && IuQLeH)
       {
         if(decomposition.dependencyOfG == FunctionsDependencyType.DEPENDS_ON_I)
-          decomposition.Qu = DecompositionsHelpers.generateMinimalBlanket(Iu, Q, H);
+          decomposition.Qu = DecompositionsHelpers.generateMinimalBlanket(Iu, Q, H, context);
         else
-          decomposition.Qu = DecompositionsHelpers.generateMinimalBlanket(Iu, Q, decomposition.Qv, H);
+          decomposition.Qu = DecompositionsHelpers.generateMinimalBlanket(Iu, Q, decomposition.Qv, H, context);
 
         decomposition.dependencyOfH = FunctionsDependencyType.DEPENDS_ON_I_AND_Q;
       }
@@ -206,14 +299,14 @@ public class Decompositions
       {
         if(decomposition.Qv.BleB(decomposition.Qu))
         {
-          decomposition.QvPartial = DecompositionsHelpers.generateMinimalBlanket(decomposition.Qu, decomposition.Qv, decomposition.Qv);
+          decomposition.QvPartial = DecompositionsHelpers.generateMinimalBlanket(decomposition.Qu, decomposition.Qv, decomposition.Qv, context);
           if(decomposition.QvPartial != null && decomposition.QvPartial.getBlocksCount() == 1) decomposition.QvPartial = null;  // It means that Qv = Qu.
           decomposition.QvJoinedWithQu = true;
         }
         else
         if(decomposition.Qu.BleB(decomposition.Qv))
         {
-          decomposition.QuPartial = DecompositionsHelpers.generateMinimalBlanket(decomposition.Qv, decomposition.Qu, decomposition.Qu);
+          decomposition.QuPartial = DecompositionsHelpers.generateMinimalBlanket(decomposition.Qv, decomposition.Qu, decomposition.Qu, context);
           if(decomposition.QuPartial != null && decomposition.QuPartial.getBlocksCount() == 1) decomposition.QuPartial = null;  // It means that Qv = Qu.
           decomposition.QuJoinedWithQv = true;
         }
@@ -221,6 +314,7 @@ public class Decompositions
 
       // Post-processing.
       decomposition.type = DecompositionType.PARALLEL_Q;
+      decomposition.partial = context.isPartial();
       decomposition.I = null;
       decomposition.Iv = Iv;
       decomposition.Iu = Iu;
@@ -238,11 +332,170 @@ public class Decompositions
     return null;
   }
 
+  /**
+   * Method finds the parallel decomposition (see "parallelDecomposition(I, Q, G, H)") with the given options (the cache, the parallelism
+   * and the time limit are used).
+   *
+   * @param I       blanket for binary inputs (may be null)
+   * @param Q       blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param G       blanket for resulting function G, i.e. Y = G x H
+   * @param H       blanket for resulting function H, i.e. Y = G x H
+   * @param options options of the decomposition
+   * @return blankets computed for decomposition
+   */
+  public static DecompositionBlankets parallelDecomposition(Blanket I, @NotNull Blanket Q, @NotNull Blanket G, @NotNull Blanket H, @NotNull DecompositionOptions options)
+  {
+    return options.run(DecompositionContext.create(), context -> parallelDecomposition(I, Q, G, H, context));
+  }
+
+  /**
+   * Method finds the parallel decomposition (see "parallelDecomposition(Iv, Iu, Q, G, H)") with the given options (the cache, the parallelism
+   * and the time limit are used).
+   *
+   * @param Iv      blanket for binary inputs for function G (may be null)
+   * @param Iu      blanket for binary inputs for function H (may be null)
+   * @param Q       blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param G       blanket for resulting function G, i.e. Y = G x H
+   * @param H       blanket for resulting function H, i.e. Y = G x H
+   * @param options options of the decomposition
+   * @return blankets computed for decomposition
+   */
+  public static DecompositionBlankets parallelDecomposition(Blanket Iv, Blanket Iu, @NotNull Blanket Q, @NotNull Blanket G, @NotNull Blanket H,
+                                                            @NotNull DecompositionOptions options)
+  {
+    return options.run(DecompositionContext.create(), context -> parallelDecomposition(Iv, Iu, Q, G, H, context));
+  }
+
+  /**
+   * Method finds the best splits of output functions into functions G and H for the parallel decomposition (see
+   * "parallelDecomposition(I, Q, G, H)"), i.e. splits, for which the sum of numbers of blocks of blankets Qv and Qu is the lowest.
+   * All splits of outputs are checked, but splits, which lower bound of the sum is greater than sums of already found results,
+   * are skipped.
+   *
+   * @param I blanket for binary inputs (may be null)
+   * @param Q blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param outputs blankets of output functions, i.e. Y = Y1 x Y2 x ... (from 2 to 16 blankets)
+   * @param resultsNum maximal number of returned results
+   * @return the best splits, ordered by the sum of numbers of blocks of blankets Qv and Qu
+   * @throws IllegalArgumentException when the number of outputs is out of range or resultsNum is less than 1
+   */
+  public static List<OutputSplit> parallelDecompositionSplits(Blanket I, @NotNull Blanket Q, @NotNull List<Blanket> outputs, int resultsNum)
+  {
+    return parallelDecompositionSplits(I, Q, outputs, resultsNum, DecompositionContext.create());
+  }
+
+  /**
+   * Method finds the best splits of output functions into functions G and H for the parallel decomposition (see
+   * "parallelDecompositionSplits(I, Q, outputs, resultsNum)"). Splits are decomposed in parallel.
+   *
+   * @param I blanket for binary inputs (may be null)
+   * @param Q blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param outputs blankets of output functions, i.e. Y = Y1 x Y2 x ... (from 2 to 16 blankets)
+   * @param resultsNum maximal number of returned results
+   * @param context context of computations, which allows to stop them - then the best splits found so far are returned
+   * @return the best splits, ordered by the sum of numbers of blocks of blankets Qv and Qu
+   * @throws IllegalArgumentException when the number of outputs is out of range or resultsNum is less than 1
+   */
+  public static List<OutputSplit> parallelDecompositionSplits(Blanket I, @NotNull Blanket Q, @NotNull List<Blanket> outputs, int resultsNum,
+                                                              @NotNull DecompositionContext context)
+  {
+    return new OutputSplitSearch(I, I, true, Q, outputs, context).search(resultsNum);
+  }
+
+  /**
+   * Method finds the best splits of output functions into functions G and H for the parallel decomposition (see
+   * "parallelDecomposition(Iv, Iu, Q, G, H)"), i.e. splits, for which the sum of numbers of blocks of blankets Qv and Qu is the lowest.
+   *
+   * @param Iv blanket for binary inputs for function G (may be null)
+   * @param Iu blanket for binary inputs for function H (may be null)
+   * @param Q blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param outputs blankets of output functions, i.e. Y = Y1 x Y2 x ... (from 2 to 16 blankets)
+   * @param resultsNum maximal number of returned results
+   * @return the best splits, ordered by the sum of numbers of blocks of blankets Qv and Qu
+   * @throws IllegalArgumentException when the number of outputs is out of range or resultsNum is less than 1
+   */
+  public static List<OutputSplit> parallelDecompositionSplits(Blanket Iv, Blanket Iu, @NotNull Blanket Q, @NotNull List<Blanket> outputs, int resultsNum)
+  {
+    return parallelDecompositionSplits(Iv, Iu, Q, outputs, resultsNum, DecompositionContext.create());
+  }
+
+  /**
+   * Method finds the best splits of output functions into functions G and H for the parallel decomposition (see
+   * "parallelDecompositionSplits(Iv, Iu, Q, outputs, resultsNum)"). Splits are decomposed in parallel.
+   *
+   * @param Iv blanket for binary inputs for function G (may be null)
+   * @param Iu blanket for binary inputs for function H (may be null)
+   * @param Q blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param outputs blankets of output functions, i.e. Y = Y1 x Y2 x ... (from 2 to 16 blankets)
+   * @param resultsNum maximal number of returned results
+   * @param context context of computations, which allows to stop them - then the best splits found so far are returned
+   * @return the best splits, ordered by the sum of numbers of blocks of blankets Qv and Qu
+   * @throws IllegalArgumentException when the number of outputs is out of range or resultsNum is less than 1
+   */
+  public static List<OutputSplit> parallelDecompositionSplits(Blanket Iv, Blanket Iu, @NotNull Blanket Q, @NotNull List<Blanket> outputs, int resultsNum,
+                                                              @NotNull DecompositionContext context)
+  {
+    return new OutputSplitSearch(Iv, Iu, false, Q, outputs, context).search(resultsNum);
+  }
+
+  /**
+   * Method returns alternative parallel decompositions for splits of output functions into functions G and H, ordered as results of
+   * "parallelDecompositionSplits(I, Q, outputs, resultsNum)". Splits are decomposed lazily, when the next result is requested from
+   * the sequential stream, so taking a few first results (e.g. by Stream.limit) decomposes only splits needed for them.
+   *
+   * @param I blanket for binary inputs (may be null)
+   * @param Q blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param outputs blankets of output functions, i.e. Y = Y1 x Y2 x ... (from 2 to 16 blankets)
+   * @return stream of splits, ordered by the sum of numbers of blocks of blankets Qv and Qu
+   * @throws IllegalArgumentException when the number of outputs is out of range
+   */
+  public static Stream<OutputSplit> parallelDecompositionAlternatives(Blanket I, @NotNull Blanket Q, @NotNull List<Blanket> outputs)
+  {
+    return parallelDecompositionAlternatives(I, Q, outputs, DecompositionContext.create());
+  }
+
+  /**
+   * Method returns alternative parallel decompositions for splits of output functions (see "parallelDecompositionAlternatives(I, Q, outputs)").
+   *
+   * @param I blanket for binary inputs (may be null)
+   * @param Q blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param outputs blankets of output functions, i.e. Y = Y1 x Y2 x ... (from 2 to 16 blankets)
+   * @param context context of computations, which allows to stop them - then the splits found so far are returned
+   * @return stream of splits, ordered by the sum of numbers of blocks of blankets Qv and Qu
+   * @throws IllegalArgumentException when the number of outputs is out of range
+   */
+  public static Stream<OutputSplit> parallelDecompositionAlternatives(Blanket I, @NotNull Blanket Q, @NotNull List<Blanket> outputs,
+                                                                      @NotNull DecompositionContext context)
+  {
+    return stream(new OutputSplitSearch(I, I, true, Q, outputs, context).iterator());
+  }
+
+  /**
+   * Method returns alternative parallel decompositions for splits of output functions (see "parallelDecompositionAlternatives(I, Q, outputs)"),
+   * where function G depends on inputs Iv, and function H depends on inputs Iu.
+   *
+   * @param Iv blanket for binary inputs for function G (may be null)
+   * @param Iu blanket for binary inputs for function H (may be null)
+   * @param Q blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param outputs blankets of output functions, i.e. Y = Y1 x Y2 x ... (from 2 to 16 blankets)
+   * @param context context of computations, which allows to stop them - then the splits found so far are returned
+   * @return stream of splits, ordered by the sum of numbers of blocks of blankets Qv and Qu
+   * @throws IllegalArgumentException when the number of outputs is out of range
+   */
+  public static Stream<OutputSplit> parallelDecompositionAlternatives(Blanket Iv, Blanket Iu, @NotNull Blanket Q, @NotNull List<Blanket> outputs,
+                                                                      @NotNull DecompositionContext context)
+  {
+    return stream(new OutputSplitSearch(Iv, Iu, false, Q, outputs, context).iterator());
+  }
+
   /**
    * Method finds the serial decomposition of function Y = F(X), where X represents binary (I) and multiple-valued inputs (Q), i.e. X = I u Q.
    * The following results may be obtained:
    * - dis-joint decomposition: Y = H(I, U, G(I, V)), where I u V u U = X,
    * - joint decomposition: Y = H(I, U, V, G(I, V)) or Y = H(I, U, G(I, V, U)), where I u V u U = X.
+   * Blanket Qv is found by the greedy algorithm. For blanket Q having up to EXACT_Q_BLOCKS disjoint blocks, the result is refined for that
+   * blanket Qv: blanket G having the fewest blocks is computed for the found blanket Qu, and then blanket Qu having the fewest blocks
+   * for blanket G, until the number of blocks doesn't decrease. It is a local refinement, not the exact search: other blankets Qv aren't checked.
    *
    * @param Iv                  blanket for binary inputs for function G (may be null)
    * @param Iu                  blanket for binary inputs for function H (may be null)
@@ -255,9 +508,239 @@ public class Decompositions
    */
   public static DecompositionBlankets serialDecomposition(Blanket Iv, Blanket Iu, @NotNull Blanket Q, @NotNull Blanket Y, int QvExpectedBlocksNum, boolean findMinimalG)
   {
-    Blanket I = Iv != null ? (Iu != null ? Iv.BxB(Iu, false) : Iv) : null;
+    return serialDecomposition(Iv, Iu, Q, Y, QvExpectedBlocksNum, findMinimalG, DecompositionContext.create());
+  }
+
+  /**
+   * Method finds the serial decomposition of function Y = F(X), where X represents binary (I) and multiple-valued inputs (Q), i.e. X = I u Q.
+   * The following results may be obtained:
+   * - dis-joint decomposition: Y = H(I, U, G(I, V)), where I u V u U = X,
+   * - joint decomposition: Y = H(I, U, V, G(I, V)) or Y = H(I, U, G(I, V, U)), where I u V u U = X.
+   *
+   * @param Iv                  blanket for binary inputs for function G (may be null)
+   * @param Iu                  blanket for binary inputs for function H (may be null)
+   * @param Q                   blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param Y                   blanket for output function Y.
+   * @param QvExpectedBlocksNum expected number of blocks in blanket Qv (final number depends on many factors, however the algorithm
+   *                            will try to finds result as close to given value as is possible)
+   * @param findMinimalG        if set to true the the algorithm try to find function G as minimal as possible
+   * @param context             context of computations, which allows to stop them - then the partial result is returned (the field "partial" is set)
+   * @return blankets computed for decomposition
+   */
+  public static DecompositionBlankets serialDecomposition(Blanket Iv, Blanket Iu, @NotNull Blanket Q, @NotNull Blanket Y, int QvExpectedBlocksNum, boolean findMinimalG, @NotNull DecompositionContext context)
+  {
+    return serialDecomposition(Iv, Iu, Q, Y, QvExpectedBlocksNum, findMinimalG, 1, context);
+  }
+
+  /**
+   * Method finds the serial decomposition of function Y = F(X), where X represents binary (I) and multiple-valued inputs (Q), i.e. X = I u Q.
+   * The following results may be obtained:
+   * - dis-joint decomposition: Y = H(I, U, G(I, V)), where I u V u U = X,
+   * - joint decomposition: Y = H(I, U, V, G(I, V)) or Y = H(I, U, G(I, V, U)), where I u V u U = X.
+   *
+   * @param Iv                  blanket for binary inputs for function G (may be null)
+   * @param Iu                  blanket for binary inputs for function H (may be null)
+   * @param Q                   blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param Y                   blanket for output function Y.
+   * @param QvExpectedBlocksNum expected number of blocks in blanket Qv (final number depends on many factors, however the algorithm
+   *                            will try to finds result as close to given value as is possible)
+   * @param findMinimalG        if set to true the the algorithm try to find function G as minimal as possible
+   * @param beamWidth           number of partial results kept in each step of the algorithm (the value 1 means the greedy algorithm)
+   * @param context             context of computations, which allows to stop them - then the partial result is returned (the field "partial" is set)
+   * @return blankets computed for decomposition
+   * @throws IllegalArgumentException when beamWidth is less than 1
+   */
+  public static DecompositionBlankets serialDecomposition(Blanket Iv, Blanket Iu, @NotNull Blanket Q, @NotNull Blanket Y, int QvExpectedBlocksNum, boolean findMinimalG, int beamWidth,
+                                                          @NotNull DecompositionContext context)
+  {
+    if(beamWidth < 1) throw new IllegalArgumentException(String.format("Beam width should be positive, given %s", beamWidth));
+
+    return serialDecomposition(Iv, Iu, Q, Y, QvExpectedBlocksNum, findMinimalG, beamWidth, DEFAULT_OPTIONS.isRefinement(), DEFAULT_OPTIONS.getLutInputs(), context);
+  }
+
+  /**
+   * Method finds the serial decomposition (see "serialDecomposition(Iv, Iu, Q, Y, QvExpectedBlocksNum, findMinimalG)") with the given options.
+   * Unlike methods without options, which use the default options (LUT cell of 4 inputs), the number of inputs of LUT cell is taken
+   * from options, so decompositions for different LUT cells may be computed concurrently.
+   *
+   * @param Iv      blanket for binary inputs for function G (may be null)
+   * @param Iu      blanket for binary inputs for function H (may be null)
+   * @param Q       blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param Y       blanket for output function Y.
+   * @param options options of the decomposition
+   * @return blankets computed for decomposition
+   */
+  public static DecompositionBlankets serialDecomposition(Blanket Iv, Blanket Iu, @NotNull Blanket Q, @NotNull Blanket Y, @NotNull DecompositionOptions options)
+  {
+    return serialDecomposition(Iv, Iu, Q, Y, options, DecompositionContext.create());
+  }
+
+  /**
+   * Method finds the serial decomposition (see "serialDecomposition(Iv, Iu, Q, Y, options)") with the given options and context.
+   * The time limit of options is counted from the start of the call, the context isn't changed (its time limit is used as well).
+   *
+   * @param Iv      blanket for binary inputs for function G (may be null)
+   * @param Iu      blanket for binary inputs for function H (may be null)
+   * @param Q       blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param Y       blanket for output function Y.
+   * @param options options of the decomposition
+   * @param context context of computations, which allows to stop them - then the partial result is returned (the field "partial" is set)
+   * @return blankets computed for decomposition
+   */
+  public static DecompositionBlankets serialDecomposition(Blanket Iv, Blanket Iu, @NotNull Blanket Q, @NotNull Blanket Y, @NotNull DecompositionOptions options,
+                                                          @NotNull DecompositionContext context)
+  {
+    return options.run(context, runContext -> serialDecomposition(Iv, Iu, Q, Y, options.getQvExpectedBlocksNum(), options.isFindMinimalG(), options.getBeamWidth(),
+                                                                  options.isRefinement(), options.getLutInputs(), runContext));
+  }
+
+  /**
+   * Method finds the serial decomposition of function Y = F(X), where X represents binary (I) and multiple-valued inputs (Q), i.e. X = I u Q.
+   * For blanket Q having up to EXACT_Q_BLOCKS disjoint blocks, the result of the greedy algorithm is refined for the found blanket Qv (see
+   * "serialDecomposition(Iv, Iu, Q, Y, QvExpectedBlocksNum, findMinimalG)"). For larger blankets Q the result of the greedy algorithm is returned.
+   *
+   * @param Iv                  blanket for binary inputs for function G (may be null)
+   * @param Iu                  blanket for binary inputs for function H (may be null)
+   * @param Q                   blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param Y                   blanket for output function Y.
+   * @param QvExpectedBlocksNum expected number of blocks in blanket Qv (final number depends on many factors, however the algorithm
+   *                            will try to finds result as close to given value as is possible)
+   * @param findMinimalG        if set to true the the greedy algorithm try to find function G as minimal as possible
+   * @param context             context of computations, which allows to stop them - then the partial result is returned (the field "partial" is set)
+   * @return blankets computed for decomposition
+   * @deprecated the refinement is applied by "serialDecomposition(Iv, Iu, Q, Y, QvExpectedBlocksNum, findMinimalG, context)", which gives
+   * the same result
+   */
+  @Deprecated
+  public static DecompositionBlankets serialDecompositionExact(Blanket Iv, Blanket Iu, @NotNull Blanket Q, @NotNull Blanket Y, int QvExpectedBlocksNum, boolean findMinimalG,
+                                                               @NotNull DecompositionContext context)
+  {
+    return serialDecomposition(Iv, Iu, Q, Y, QvExpectedBlocksNum, findMinimalG, 1, true, DEFAULT_OPTIONS.getLutInputs(), context);
+  }
+
+  /**
+   * Method finds the best splits of binary inputs into inputs of functions G (Iv) and H (Iu) for the serial decomposition (see
+   * "serialDecomposition(Iv, Iu, Q, Y, QvExpectedBlocksNum, findMinimalG)"), i.e. splits, for which function H has the fewest binary
+   * inputs (inputs of Iu and bits encoding blankets G and Qu). Function G may have at most 3 binary inputs (LUT cell of 4 inputs). All such
+   * splits are checked, but splits, which lower bound of the number of inputs of H is greater than numbers of already found results,
+   * are skipped.
+   *
+   * @param inputs       blankets of binary inputs, i.e. I = I1 x I2 x ... (from 1 to 16 blankets)
+   * @param Q            blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param Y            blanket for output function Y.
+   * @param findMinimalG if set to true the the algorithm try to find function G as minimal as possible
+   * @param resultsNum   maximal number of returned results
+   * @return the best splits, ordered by the number of inputs of function H
+   * @throws IllegalArgumentException when the number of inputs is out of range or resultsNum is less than 1
+   */
+  public static List<InputSplit> serialDecompositionSplits(@NotNull List<Blanket> inputs, @NotNull Blanket Q, @NotNull Blanket Y, boolean findMinimalG, int resultsNum)
+  {
+    return serialDecompositionSplits(inputs, Q, Y, findMinimalG, resultsNum, DecompositionContext.create());
+  }
+
+  /**
+   * Method finds the best splits of binary inputs into inputs of functions G (Iv) and H (Iu) for the serial decomposition (see
+   * "serialDecompositionSplits(inputs, Q, Y, findMinimalG, resultsNum)"). Splits are decomposed in parallel.
+   *
+   * @param inputs       blankets of binary inputs, i.e. I = I1 x I2 x ... (from 1 to 16 blankets)
+   * @param Q            blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param Y            blanket for output function Y.
+   * @param findMinimalG if set to true the the algorithm try to find function G as minimal as possible
+   * @param resultsNum   maximal number of returned results
+   * @param context      context of computations, which allows to stop them - then the best splits found so far are returned
+   * @return the best splits, ordered by the number of inputs of function H
+   * @throws IllegalArgumentException when the number of inputs is out of range or resultsNum is less than 1
+   */
+  public static List<InputSplit> serialDecompositionSplits(@NotNull List<Blanket> inputs, @NotNull Blanket Q, @NotNull Blanket Y, boolean findMinimalG, int resultsNum,
+                                                           @NotNull DecompositionContext context)
+  {
+    return new InputSplitSearch(inputs, Q, Y, DEFAULT_OPTIONS.withFindMinimalG(findMinimalG), context).search(resultsNum);
+  }
+
+  /**
+   * Method returns alternative serial decompositions for splits of binary inputs into inputs of functions G (Iv) and H (Iu), i.e. decompositions
+   * having different blankets Qv, G and Qu, ordered as results of "serialDecompositionSplits(inputs, Q, Y, findMinimalG, resultsNum)". Splits are
+   * decomposed lazily, when the next result is requested from the sequential stream, so taking a few first results (e.g. by Stream.limit)
+   * decomposes only splits needed for them.
+   *
+   * @param inputs       blankets of binary inputs, i.e. I = I1 x I2 x ... (from 1 to 16 blankets)
+   * @param Q            blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param Y            blanket for output function Y.
+   * @param findMinimalG if set to true the the algorithm try to find function G as minimal as possible
+   * @return stream of splits, ordered by the number of inputs of function H
+   * @throws IllegalArgumentException when the number of inputs is out of range
+   */
+  public static Stream<InputSplit> serialDecompositionAlternatives(@NotNull List<Blanket> inputs, @NotNull Blanket Q, @NotNull Blanket Y, boolean findMinimalG)
+  {
+    return serialDecompositionAlternatives(inputs, Q, Y, findMinimalG, DecompositionContext.create());
+  }
+
+  /**
+   * Method returns alternative serial decompositions for splits of binary inputs (see "serialDecompositionAlternatives(inputs, Q, Y, findMinimalG)").
+   *
+   * @param inputs       blankets of binary inputs, i.e. I = I1 x I2 x ... (from 1 to 16 blankets)
+   * @param Q            blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param Y            blanket for output function Y.
+   * @param findMinimalG if set to true the the algorithm try to find function G as minimal as possible
+   * @param context      context of computations, which allows to stop them - then the splits found so far are returned
+   * @return stream of splits, ordered by the number of inputs of function H
+   * @throws IllegalArgumentException when the number of inputs is out of range
+   */
+  public static Stream<InputSplit> serialDecompositionAlternatives(@NotNull List<Blanket> inputs, @NotNull Blanket Q, @NotNull Blanket Y, boolean findMinimalG,
+                                                                   @NotNull DecompositionContext context)
+  {
+    return stream(new InputSplitSearch(inputs, Q, Y, DEFAULT_OPTIONS.withFindMinimalG(findMinimalG), context).iterator());
+  }
+
+  /**
+   * Method returns alternative serial decompositions for splits of binary inputs (see "serialDecompositionAlternatives(inputs, Q, Y, findMinimalG)")
+   * with the given options. Function G may have at most (options.getLutInputs() - 1) binary inputs, and splits are decomposed with parameters
+   * of the serial decomposition of options. The time limit of options is counted from the call, and results are computed in the pool
+   * of options.getParallelism() threads, when they are requested.
+   *
+   * @param inputs  blankets of binary inputs, i.e. I = I1 x I2 x ... (from 1 to 16 blankets)
+   * @param Q       blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param Y       blanket for output function Y.
+   * @param options options of the decomposition
+   * @return stream of splits, ordered by the number of inputs of function H
+   * @throws IllegalArgumentException when the number of inputs is out of range
+   */
+  public static Stream<InputSplit> serialDecompositionAlternatives(@NotNull List<Blanket> inputs, @NotNull Blanket Q, @NotNull Blanket Y,
+                                                                   @NotNull DecompositionOptions options)
+  {
+    return stream(options.iterate(DecompositionContext.create(), context -> new InputSplitSearch(inputs, Q, Y, options, context).iterator()));
+  }
+
+  /**
+   * Method finds the best splits of binary inputs for the serial decomposition (see "serialDecompositionSplits(inputs, Q, Y, findMinimalG, resultsNum)")
+   * with the given options. Function G may have at most (options.getLutInputs() - 1) binary inputs, and splits are decomposed with parameters
+   * of the serial decomposition of options (the number of blocks of blanket Qv, the beam width and the refinement).
+   *
+   * @param inputs     blankets of binary inputs, i.e. I = I1 x I2 x ... (from 1 to 16 blankets)
+   * @param Q          blanket for input that being the object for encoding (binary/multiple-valued) through decomposition
+   * @param Y          blanket for output function Y.
+   * @param resultsNum maximal number of returned results
+   * @param options    options of the decomposition
+   * @return the best splits, ordered by the number of inputs of function H
+   * @throws IllegalArgumentException when the number of inputs is out of range or resultsNum is less than 1
+   */
+  public static List<InputSplit> serialDecompositionSplits(@NotNull List<Blanket> inputs, @NotNull Blanket Q, @NotNull Blanket Y, int resultsNum,
+                                                           @NotNull DecompositionOptions options)
+  {
+    return options.run(DecompositionContext.create(), context -> new InputSplitSearch(inputs, Q, Y, options, context).search(resultsNum));
+  }
+
+  // Method finds the serial decomposition for LUT cell having "lutInputs" inputs, for "refine" set to true and blanket Q having up to EXACT_Q_BLOCKS
+  // blocks the result is refined for the found blanket Qv by the search of blankets G and Qu having the fewest blocks.
+  static DecompositionBlankets serialDecomposition(Blanket Iv, Blanket Iu, Blanket Q, Blanket Y, int QvExpectedBlocksNum, boolean findMinimalG, int beamWidth, boolean refine,
+                                                   int lutInputs, DecompositionContext context)
+  {
+    // The check of sampled terms rejects most of not deterministic functions without computing products of blankets.
+    if(DecompositionPrefilter.findNotDeterministicTerm(new Blanket[] {Iv, Iu, Q}, new Blanket[] {Y}) >= 0) return null;
+
+    Blanket I = Iv != null ? (Iu != null ? product(Iv, Iu, false, context) : Iv) : null;
 
-    if((I != null && I.BxB(Q, false).BleB(Y)) || Q.BleB(Y))
+    if((I != null && product(I, Q, false, context).BleB(Y)) || Q.BleB(Y))
     {
       // Algorithm (steps 1-5, described below in the code):
       // 1. Finding the blanket M, used as a helper blanket: According to theorem for serial decomposition it follows that Iv x Qv <= G and Iu x Qu x G <= Y. Thus, there
@@ -266,7 +749,7 @@ public class Decompositions
       //    there may be computed blanket M, which fulfils that relation. In this case the blocks of G = Iv x Q should be used, what also is the worst case of blanket M.
       //    The best blanket M is the one, which fulfills Iu * M <= Y relation. Blanket M simplifies finding the blanket G.
       //
-      Blanket M = (Iu == null ? Blanket.copy(Y) : DecompositionsHelpers.generateMinimalBlanket(Iu, (Iv == null ? Q : Iv.BxB(Q)), Y));
+      Blanket M = (Iu == null ? Blanket.copy(Y) : DecompositionsHelpers.generateMinimalBlanket(Iu, (Iv == null ? Q : product(Iv, Q, true, context)), Y, context));
 
       // 2. Determination of the probable number of blocks in blanket G:
       //    The procedure estimates the quality of the probable final solution for series decomposition and is crucial for the decisions made when selecting the next partial
@@ -283,33 +766,42 @@ public class Decompositions
       //
       //    The number of blocks in blanket Gprob is equal to probable number of blocks in blanket G.
       //
-      Blanket GProb = DecompositionsHelpers.generateMinimalBlanket(Q, Iv != null ? Iv.BxB(Q, false) : Q, M);
-
-      List<Block> QBlocks = Blanket.copy(Q).getBlocks();
+      // Covers of blocks (the blocks of M including common parts of blocks of Qu and G) are shared by all calls of generateMinimalBlanket() for blanket M.
+      CompatibilityCache MCache = context.getBlanketCache() != null ? context.getBlanketCache().getCompatibilityCache(M) : CompatibilityCache.create(M);
+      Blanket GProb = DecompositionsHelpers.generateMinimalBlanket(Q, Iv != null ? product(Iv, Q, false, context) : Q, MCache, context);
 
       // Initially, Qv and Qu only consist of the first block of blanket Q. The initial blanket G is also computed for these blankets.
-      Blanket Qv = Blanket.create(QBlocks.get(0));
-      Blanket Qu = Blanket.create(QBlocks.get(0));
-      QBlocks.remove(0);
-
-      Blanket G = (Iv != null ? Iv.BxB(Qv) : Blanket.copy(Qv));
+      SerialState initialState = new SerialState();
+      initialState.QBlocks = Blanket.copy(Q).getBlocks();
+      initialState.Qv = Blanket.create(initialState.QBlocks.get(0));
+      initialState.Qu = Blanket.create(initialState.QBlocks.get(0));
+      initialState.QBlocks.remove(0);
+      initialState.G = (Iv != null ? Iv.BxB(initialState.Qv) : Blanket.copy(initialState.Qv));
+      initialState.greedy = true;
 
-      // The optimal number of blocks of blanket Qv should be equal to 2^(LUT_INPUTS - Log2(Iv)). If it is not possible to find such a blanket, then algorithm tries to find
+      // The optimal number of blocks of blanket Qv should be equal to 2^(lutInputs - Log2(Iv)). If it is not possible to find such a blanket, then algorithm tries to find
       // the blanket Qv having as small number of blocks as possible - in this case the function G may have more inputs than have LUT cell and requires further decomposition.
       // When value of parameter QvExpectedBlocksNum is greater than 0, the automatic computation for number of blocks in blanket Qv is omitted. Otherwise, the value of parameter
       // QvMinimumBlockNum will be computed so as to the blanket Qv will have number blocks equal to number of unused inputs of last LUT cell used for encoding of function G.
       //
-      int QvMinimumBlockNum = (QvExpectedBlocksNum > 0 ? QvExpectedBlocksNum : (int)Math.pow(2, (LUT_INPUTS - (Iv != null ? (int)Math.ceil(Math.log(Iv.getBlocksCount()) / Math.log(2)) : 0))));
+      int QvMinimumBlockNum = (QvExpectedBlocksNum > 0 ? QvExpectedBlocksNum : (int)Math.pow(2, (lutInputs - (Iv != null ? (int)Math.ceil(Math.log(Iv.getBlocksCount()) / Math.log(2)) : 0))));
 
-      int QSumNum = (int)Math.ceil(Q.getBlocksCount() / (float)QvMinimumBlockNum);  // QSumNum = number of blocks of blanket Q, which should be summed in the next block of blanket QvTmp.
-      int QSumBlkCnt = (QSumNum == 1 ? 0 : 1);                                      // QSumBlkCnt = number of blocks of blanket Q, which are already summed in last blocks of blanket QvTmp,
-                                                                                    //              the 0 value means that there is not enough blocks in blanket Q, which may be summed,
-                                                                                    //              the 1 value means that only one blocks is summed in blanket QvTmp.
-      while(!QBlocks.isEmpty())
+      initialState.QSumNum = (int)Math.ceil(Q.getBlocksCount() / (float)QvMinimumBlockNum);  // QSumNum = number of blocks of blanket Q, which should be summed in the next block of blanket QvTmp.
+      initialState.QSumBlkCnt = (initialState.QSumNum == 1 ? 0 : 1);                         // QSumBlkCnt = number of blocks of blanket Q, which are already summed in last blocks of blanket QvTmp,
+                                                                                             //              the 0 value means that there is not enough blocks in blanket Q, which may be summed,
+                                                                                             //              the 1 value means that only one blocks is summed in blanket QvTmp.
+
+      // The beam search keeps in each step "beamWidth" best partial results (states), ordered by numbers of blocks of blankets G, Qu, Qu x G and Qu x M.
+      // The state chosen by the greedy algorithm from the greedy state of previous step is always kept, thus for beamWidth = 1 the algorithm is the greedy one.
+      List<SerialState> states = Collections.singletonList(initialState);
+      while(!states.get(0).QBlocks.isEmpty())
       {
-        Blanket QvMin = null;  // In each step there are computed minimal blankets Qv, Qu and G, thus they should be nulled here.
-        Blanket QuMin = null;
-        Blanket GMin = null;
+        if(context.isStopped())
+        {
+          states = Collections.singletonList(finishSerialState(states.get(0), Iv));
+          context.markPartial();
+          break;
+        }
 
         // 3. In this stage of algorithm the initial value of blanket Qv is already chosen and is equal to the first blocks of blanket Q. The same value is stored in blanket Qu.
         //    Used block is removed from blanket Q.
@@ -319,128 +811,24 @@ public class Decompositions
         //    the principle that says that blocks summed in one block of blanket Qv have to be stored in different blocks of blanket Qu. The the rule Qu x Qv = Q is valid.
         // 5. Block used in step 4 is removed from blanket Q. The algorithm ends when there is no more blocks in blanket Q.
         //
-        int usedQBlkNum = -1;
-        for(int i = 0; i < QBlocks.size(); i++)
-        {
-          Blanket QvTmp = Blanket.copy(Qv);
+        // States are expanded in parallel.
+        List<SerialState> currentStates = states;
+        List<List<SerialState>> nextStates = IntStream.range(0, currentStates.size()).parallel()
+          .mapToObj(s -> nextSerialStates(currentStates.get(s), Iv, M, MCache, GProb, findMinimalG, QvMinimumBlockNum, beamWidth > 1, context))
+          .collect(Collectors.toList());
 
-          // Adding the block of blanket Q to the block of blanket Qv, whem the number of summed blocks is less than the assumed number (value is computed in each step of the loop).
-          // Otherwise, a new block in blanket Qv is created.
-          if(QSumBlkCnt == 0)
-          {
-            // There will be created a new block in blanket QvTmp.
-            QvTmp.addBlock(QBlocks.get(i));
-          }
-          else
-          {
-            int QvTmpBlkPos = QvTmp.getBlocksCount() - 1;
-            QvTmp.getBlocks().set(QvTmpBlkPos, QvTmp.getBlocks().get(QvTmpBlkPos).getBlockPlus(QBlocks.get(i)));
-          }
-
-          Blanket GTmp = (Iv != null ? Iv.BxB(QvTmp) : Blanket.copy(QvTmp));
-          int minBlkCntQuG = 0;
-          int minBlkCntQuM = 0;
-
-          for(int j = 0; j < Qu.getBlocksCount(); j++)
-          {
-            Blanket QuTmp = Blanket.copy(Qu);
-
-            // Checking whether selected block of blanket Qu (candidate for adding currently processed block of blanket Q) has no blocks in common with
-            // the last block of blanket Qv. In this case the product of those blankets results with empty blanket.
-            Block QvBlkMulQuBlk = QvTmp.getBlocks().get(QvTmp.getBlocksCount() - 1).getBlockMul(QuTmp.getBlocks().get(j));
-            if(QvBlkMulQuBlk.isEmpty())
-            {
-              QuTmp.getBlocks().set(j, QuTmp.getBlocks().get(j).getBlockPlus(QBlocks.get(i)));
-            }
-            else
-              QuTmp.addBlock(QBlocks.get(i));
-
-            // Computing the measures allowing for evaluation of chosen partial result.
-            // It was observed that the best result was obtained when in partial blankets G and Qu number of blocks is the smallest.
-            Blanket GTmpMin = DecompositionsHelpers.generateMinimalBlanket(QuTmp, GTmp, M);
-            Blanket QuG = QuTmp.BxB(GTmpMin, false);
-            Blanket QuM = QuTmp.BxB(M, false);
-            boolean optimalResult;
-
-            if(findMinimalG)
-            {
-              if(GMin == null)
-              {
-                optimalResult = GTmpMin.getBlocksCount() <= GProb.getBlocksCount();
-              }
-              else
-                optimalResult =
-                  ((GMin.getBlocksCount() < GTmpMin.getBlocksCount()) && (GTmpMin.getBlocksCount() <= GProb.getBlocksCount()) && (QuMin.getBlocksCount() > QuTmp.getBlocksCount())) ||
-                  ((GMin.getBlocksCount() < GTmpMin.getBlocksCount()) && (GTmpMin.getBlocksCount() <= GProb.getBlocksCount()) && (minBlkCntQuG > QuG.getBlocksCount())) ||
-                  ((GMin.getBlocksCount() < GTmpMin.getBlocksCount()) && (GTmpMin.getBlocksCount() <= GProb.getBlocksCount()) && (minBlkCntQuG == QuG.getBlocksCount()) && (minBlkCntQuM > QuM.getBlocksCount())) ||
-                  ((GMin.getBlocksCount() == GTmpMin.getBlocksCount()) && (QuMin.getBlocksCount() > QuTmp.getBlocksCount())) ||
-                  (GMin.getBlocksCount() > GTmpMin.getBlocksCount());
-            }
-            else
-              optimalResult =
-                (GMin == null) ||
-                ((GMin.getBlocksCount() <  GTmpMin.getBlocksCount()) && (GTmpMin.getBlocksCount() <= GProb.getBlocksCount()) && (QuMin.getBlocksCount() > QuTmp.getBlocksCount())) ||
-                ((GMin.getBlocksCount() <= GTmpMin.getBlocksCount()) && (minBlkCntQuG > QuG.getBlocksCount())) ||
-                ((GMin.getBlocksCount() <= GTmpMin.getBlocksCount()) && (minBlkCntQuG == QuG.getBlocksCount()) && (minBlkCntQuM > QuM.getBlocksCount())) ||
-                ((GMin.getBlocksCount() == GTmpMin.getBlocksCount()) && (QuMin.getBlocksCount() > QuTmp.getBlocksCount())) ||
-                 (GMin.getBlocksCount() >  GTmpMin.getBlocksCount());
-
-            if(optimalResult && QuG.BleB(M))
-            {
-              minBlkCntQuG = QuG.getBlocksCount();
-              minBlkCntQuM = QuM.getBlocksCount();
-
-              usedQBlkNum = i;  // The "usedQBlkNum" value points to block of blanket Q, which was summed in the best partial result in this step of loop.
-
-              QvMin = QvTmp;
-              QuMin = QuTmp;
-              GMin = GTmpMin;
-            }
-          }
-        }
-
-        if(GMin == null || GMin.getBlocksCount() > GProb.getBlocksCount())
-        {
-          // If program goes here it means that:
-          // - (for condition GMin == null) there was not possible to add any of remaining blocks from blanket Q to blanket Qv.
-          // - (for condition GMin.getBlocksCount() > GProb.getBlocksCount()) adding block from blanket Q to any of existing
-          //   blocks from blanket Qu causes that the number of blocks in blanket G exceeded the allowed maximum - so block of
-          //   blanket Q will be added to blanket Qv as a separate block.
-          if(GMin == null)
-          {
-            usedQBlkNum = 0;
+        if(context.isStopped()) continue;  // The partial result of this step is not used.
 
-            QvMin = Blanket.copy(Qv);
-            QvMin.addBlock(QBlocks.get(usedQBlkNum));
-
-            QSumBlkCnt = 0;  // The value was chosen so that the algorithm will try add blocks of blanket Q to the last block of blanket Qv (it was already created).
-          }
-
-          QuMin = Blanket.copy(Qu);
-          QuMin.addBlock(QBlocks.get(usedQBlkNum));
-
-          GMin = DecompositionsHelpers.generateMinimalBlanket(QuMin, Iv != null ? Iv.BxB(QvMin) : QvMin, M);
-        }
-
-        // Resetting variables before next step of loop.
-        Qv = QvMin;
-        Qu = QuMin;
-        G = GMin;
-
-        // Computing a number of blocks, which should be summed with the last block of blanket Qv, or in case of creating a new block in blanket Qv
-        if(++QSumBlkCnt == QSumNum)
-        {
-          if(QvMinimumBlockNum - Qv.getBlocksCount() > 0)
-          {
-            QSumNum = (int)Math.ceil((QBlocks.size() - 1) / (float)(QvMinimumBlockNum - Qv.getBlocksCount()));  // Number of blocks from blanket Q, which should be summed in next block of blanket QvTmp.
-            QSumBlkCnt = 0;                                                                                     // Number of blocks from blanket Q, which are already summed in the last block of blanket QvTmp.
-          }
-        }
-
-        // Removing used block from blanket Q.
-        QBlocks.remove(usedQBlkNum);
+        states = selectSerialStates(nextStates, beamWidth);
+        context.progress(Q.getBlocksCount() - states.get(0).QBlocks.size(), Q.getBlocksCount());
       }
 
+      SerialState state = states.get(0);
+      if(refine && Q.getBlocksCount() <= EXACT_Q_BLOCKS && !context.isStopped()) state = refineSerialState(state, Iv, Q, M, context);
+      Blanket Qv = state.Qv;
+      Blanket Qu = state.Qu;
+      Blanket G = state.G;
+
       DecompositionBlankets decomposition = DecompositionBlankets.create();
       decomposition.Qv = Qv;
       decomposition.Qu = Qu;
@@ -450,14 +838,14 @@ public class Decompositions
       {
         if(decomposition.Qv.BleB(decomposition.Qu))
         {
-          decomposition.QvPartial = DecompositionsHelpers.generateMinimalBlanket(decomposition.Qu, decomposition.Qv, decomposition.Qv);
+          decomposition.QvPartial = DecompositionsHelpers.generateMinimalBlanket(decomposition.Qu, decomposition.Qv, decomposition.Qv, context);
           if(decomposition.QvPartial != null && decomposition.QvPartial.getBlocksCount() == 1) decomposition.QvPartial = null;  // It means that Qv = Qu.
           decomposition.QvJoinedWithQu = true;
         }
         else
         if(decomposition.Qu.BleB(decomposition.Qv))
         {
-          decomposition.QuPartial = DecompositionsHelpers.generateMinimalBlanket(decomposition.Qv, decomposition.Qu, decomposition.Qu);
+          decomposition.QuPartial = DecompositionsHelpers.generateMinimalBlanket(decomposition.Qv, decomposition.Qu, decomposition.Qu, context);
           if(decomposition.QuPartial != null && decomposition.QuPartial.getBlocksCount() == 1) decomposition.QuPartial = null;  // It means that Qv = Qu.
           decomposition.QuJoinedWithQv = true;
         }
@@ -465,6 +853,7 @@ public class Decompositions
 
       // Post-processing.
       decomposition.type = DecompositionType.SERIAL_QGH;
+      decomposition.partial = context.isPartial();
       decomposition.Iv = Iv;
       decomposition.Iu = Iu;
       decomposition.Q = Q;
@@ -480,4 +869,504 @@ public class Decompositions
 
     return null;
   }
+
+  /**
+   * Method finds the network of LUT cells for function Y = F(X), where X represents binary (I) and multiple-valued inputs (Q), i.e. X = I u Q,
+   * by the multi-level decomposition. Functions having many outputs are split by the parallel decomposition, and functions having more
+   * input bits than LUT cell (of 4 inputs) are decomposed by the serial decomposition, then resulting functions G and H are decomposed again,
+   * until they fit LUT cells. Independent functions are decomposed in parallel, in the common pool of threads.
+   *
+   * @param inputs  blankets of binary inputs, i.e. I = I1 x I2 x ...
+   * @param Q       blanket for input that being the object for encoding (may be null, then the binary input having the most blocks is used)
+   * @param outputs blankets of output functions, i.e. Y = Y1 x Y2 x ...
+   * @return network of LUT cells
+   * @throws IllegalArgumentException when no output is given
+   */
+  public static LutNetwork multiLevelDecomposition(@NotNull List<Blanket> inputs, Blanket Q, @NotNull List<Blanket> outputs)
+  {
+    return multiLevelDecomposition(inputs, Q, outputs, DecompositionContext.create());
+  }
+
+  /**
+   * Method finds the network of LUT cells by the multi-level decomposition (see "multiLevelDecomposition(inputs, Q, outputs)").
+   *
+   * @param inputs  blankets of binary inputs, i.e. I = I1 x I2 x ...
+   * @param Q       blanket for input that being the object for encoding (may be null, then the binary input having the most blocks is used)
+   * @param outputs blankets of output functions, i.e. Y = Y1 x Y2 x ...
+   * @param context context of computations, which allows to stop them - then not decomposed functions are left as nodes not fitting LUT cells
+   * @return network of LUT cells
+   * @throws IllegalArgumentException when no output is given
+   */
+  public static LutNetwork multiLevelDecomposition(@NotNull List<Blanket> inputs, Blanket Q, @NotNull List<Blanket> outputs, @NotNull DecompositionContext context)
+  {
+    if(outputs.isEmpty()) throw new IllegalArgumentException("Number of outputs should be positive, given 0");
+
+    return new LutNetworkBuilder(DEFAULT_OPTIONS, context).build(inputs, Q, outputs);
+  }
+
+  /**
+   * Method finds the network of LUT cells by the multi-level decomposition (see "multiLevelDecomposition(inputs, Q, outputs)") with the given
+   * options: functions fit LUT cells of options.getLutInputs() inputs, serial decompositions use parameters of options, and functions are
+   * decomposed in the pool of options.getParallelism() threads.
+   *
+   * @param inputs  blankets of binary inputs, i.e. I = I1 x I2 x ...
+   * @param Q       blanket for input that being the object for encoding (may be null, then the binary input having the most blocks is used)
+   * @param outputs blankets of output functions, i.e. Y = Y1 x Y2 x ...
+   * @param options options of the decomposition
+   * @return network of LUT cells
+   * @throws IllegalArgumentException when no output is given
+   */
+  public static LutNetwork multiLevelDecomposition(@NotNull List<Blanket> inputs, Blanket Q, @NotNull List<Blanket> outputs, @NotNull DecompositionOptions options)
+  {
+    if(outputs.isEmpty()) throw new IllegalArgumentException("Number of outputs should be positive, given 0");
+
+    return options.run(DecompositionContext.create(), context -> new LutNetworkBuilder(options, context).build(inputs, Q, outputs));
+  }
+
+  // Method returns the sequential stream of results of the iterator, which computes results lazily.
+  private static <T> Stream<T> stream(Iterator<T> iterator)
+  {
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
+  // Method computes the product A x B, using the cache of products of the context (shared by decompositions of the batch), if it is given.
+  private static Blanket product(Blanket A, Blanket B, boolean sort, DecompositionContext context)
+  {
+    return context.getBlanketCache() != null ? context.getBlanketCache().BxB(A, B, sort) : A.BxB(B, sort);
+  }
+
+  // Products of blankets of the parallel decomposition, each of them is computed once, when it is needed first.
+  private static final class ParallelProducts
+  {
+    private final Blanket Iv;
+    private final Blanket Iu;
+    private final Blanket Q;
+    private final DecompositionContext context;
+    private Blanket IvQ;
+    private Blanket IuQ;
+    private Blanket IQ;
+
+    ParallelProducts(Blanket Iv, Blanket Iu, Blanket Q, DecompositionContext context)
+    {
+      this.Iv = Iv;
+      this.Iu = Iu;
+      this.Q = Q;
+      this.context = context;
+    }
+
+    Blanket getIvQ()
+    {
+      if(IvQ == null) IvQ = product(Iv, Q, false, context);
+      return IvQ;
+    }
+
+    Blanket getIuQ()
+    {
+      if(IuQ == null) IuQ = product(Iu, Q, false, context);
+      return IuQ;
+    }
+
+    // Product I x Q, where I = Iv x Iu (Iv and Iu may be null), computed from the already computed product Iv x Q or Iu x Q.
+    Blanket getIQ()
+    {
+      if(IQ == null)
+      {
+        if(Iv == null) IQ = Iu == null ? Q : getIuQ();
+        else if(Iu == null) IQ = getIvQ();
+        else IQ = IuQ != null && IvQ == null ? product(IuQ, Iv, false, context) : product(getIvQ(), Iu, false, context);
+      }
+
+      return IQ;
+    }
+  }
+
+  // Partial result (state) of the serial decomposition.
+  private static final class SerialState
+  {
+    Blanket Qv;
+    Blanket Qu;
+    Blanket G;
+    List<Block> QBlocks;  // Remaining blocks of blanket Q.
+    int QSumNum;
+    int QSumBlkCnt;
+    int QuGCount;         // Number of blocks of blanket Qu x G (used for ordering of states only).
+    int QuMCount;         // Number of blocks of blanket Qu x M (used for ordering of states only).
+    boolean greedy;       // Value "true" means that the state was chosen by the greedy algorithm in each step.
+  }
+
+  // Order of states in the beam search: the best state is the first one.
+  private static final Comparator<SerialState> SERIAL_STATE_ORDER = Comparator.<SerialState>comparingInt(state -> state.G.getBlocksCount())
+    .thenComparingInt(state -> state.Qu.getBlocksCount())
+    .thenComparingInt(state -> state.QuGCount)
+    .thenComparingInt(state -> state.QuMCount);
+
+  /**
+   * Method performs the step of the serial decomposition for the given state: one of remaining blocks of blanket Q is added to blankets Qv and Qu.
+   *
+   * @param state state of the serial decomposition
+   * @param Iv blanket for binary input (may be null)
+   * @param M blanket M
+   * @param MCache cache of covers of blocks for blanket M
+   * @param GProb probable blanket G
+   * @param findMinimalG if set to true the the algorithm try to find function G as minimal as possible
+   * @param QvMinimumBlockNum expected number of blocks in blanket Qv
+   * @param alternatives if true, all states not worse than GProb are returned, otherwise only the state chosen by the greedy algorithm
+   * @param context context of computations
+   * @return next states, the state chosen by the greedy algorithm is the first one (empty list, when computations were stopped)
+   */
+  private static List<SerialState> nextSerialStates(SerialState state, Blanket Iv, Blanket M, CompatibilityCache MCache, Blanket GProb, boolean findMinimalG,
+                                                    int QvMinimumBlockNum, boolean alternatives, DecompositionContext context)
+  {
+    Blanket QvMin = null;  // In each step there are computed minimal blankets Qv, Qu and G, thus they should be nulled here.
+    Blanket QuMin = null;
+    Blanket GMin = null;
+
+    // Candidates (block i of blanket Q summed with block j of blanket Qu) are independent of each other, so they are evaluated in parallel. The best candidate
+    // is chosen below in the order of the loops over i and j, thus the result is the same as for the sequential evaluation.
+    SerialCandidate[] candidates = evaluateSerialCandidates(Iv, state, state.QSumBlkCnt == 0, M, MCache, context);
+
+    int usedQBlkNum = -1;
+    for(int i = 0; i < state.QBlocks.size(); i++)
+    {
+      int minBlkCntQuG = 0;
+      int minBlkCntQuM = 0;
+
+      for(int j = 0; j < state.Qu.getBlocksCount(); j++)
+      {
+        SerialCandidate candidate = candidates[i * state.Qu.getBlocksCount() + j];
+        if(candidate == null) continue;  // Computations were stopped before evaluation of the candidate.
+
+        Blanket QuTmp = candidate.Qu;
+        Blanket GTmpMin = candidate.G;
+        Blanket QuG = candidate.QuG;
+        Blanket QuM = candidate.QuM;
+        boolean optimalResult;
+
+        if(findMinimalG)
+        {
+          if(GMin == null)
+          {
+            optimalResult = GTmpMin.getBlocksCount() <= GProb.getBlocksCount();
+          }
+          else
+            optimalResult =
+              ((GMin.getBlocksCount() < GTmpMin.getBlocksCount()) && (GTmpMin.getBlocksCount() <= GProb.getBlocksCount()) && (QuMin.getBlocksCount() > QuTmp.getBlocksCount())) ||
+              ((GMin.getBlocksCount() < GTmpMin.getBlocksCount()) && (GTmpMin.getBlocksCount() <= GProb.getBlocksCount()) && (minBlkCntQuG > QuG.getBlocksCount())) ||
+              ((GMin.getBlocksCount() < GTmpMin.getBlocksCount()) && (GTmpMin.getBlocksCount() <= GProb.getBlocksCount()) && (minBlkCntQuG == QuG.getBlocksCount()) && (minBlkCntQuM > QuM.getBlocksCount())) ||
+              ((GMin.getBlocksCount() == GTmpMin.getBlocksCount()) && (QuMin.getBlocksCount() > QuTmp.getBlocksCount())) ||
+              (GMin.getBlocksCount() > GTmpMin.getBlocksCount());
+        }
+        else
+          optimalResult =
+            (GMin == null) ||
+            ((GMin.getBlocksCount() <  GTmpMin.getBlocksCount()) && (GTmpMin.getBlocksCount() <= GProb.getBlocksCount()) && (QuMin.getBlocksCount() > QuTmp.getBlocksCount())) ||
+            ((GMin.getBlocksCount() <= GTmpMin.getBlocksCount()) && (minBlkCntQuG > QuG.getBlocksCount())) ||
+            ((GMin.getBlocksCount() <= GTmpMin.getBlocksCount()) && (minBlkCntQuG == QuG.getBlocksCount()) && (minBlkCntQuM > QuM.getBlocksCount())) ||
+            ((GMin.getBlocksCount() == GTmpMin.getBlocksCount()) && (QuMin.getBlocksCount() > QuTmp.getBlocksCount())) ||
+             (GMin.getBlocksCount() >  GTmpMin.getBlocksCount());
+
+        if(optimalResult && candidate.QuGleM)
+        {
+          minBlkCntQuG = QuG.getBlocksCount();
+          minBlkCntQuM = QuM.getBlocksCount();
+
+          usedQBlkNum = i;  // The "usedQBlkNum" value points to block of blanket Q, which was summed in the best partial result in this step of loop.
+
+          QvMin = candidate.Qv;
+          QuMin = QuTmp;
+          GMin = GTmpMin;
+        }
+      }
+    }
+
+    if(context.isStopped()) return Collections.emptyList();  // The partial result of this step is not used.
+
+    int QSumBlkCnt = state.QSumBlkCnt;
+    if(GMin == null || GMin.getBlocksCount() > GProb.getBlocksCount())
+    {
+      // If program goes here it means that:
+      // - (for condition GMin == null) there was not possible to add any of remaining blocks from blanket Q to blanket Qv.
+      // - (for condition GMin.getBlocksCount() > GProb.getBlocksCount()) adding block from blanket Q to any of existing
+      //   blocks from blanket Qu causes that the number of blocks in blanket G exceeded the allowed maximum - so block of
+      //   blanket Q will be added to blanket Qv as a separate block.
+      if(GMin == null)
+      {
+        usedQBlkNum = 0;
+
+        QvMin = Blanket.copy(state.Qv);
+        QvMin.addBlock(state.QBlocks.get(usedQBlkNum));
+
+        QSumBlkCnt = 0;  // The value was chosen so that the algorithm will try add blocks of blanket Q to the last block of blanket Qv (it was already created).
+      }
+
+      QuMin = Blanket.copy(state.Qu);
+      QuMin.addBlock(state.QBlocks.get(usedQBlkNum));
+
+      GMin = DecompositionsHelpers.generateMinimalBlanket(QuMin, Iv != null ? Iv.BxB(QvMin) : QvMin, MCache, context);
+    }
+
+    List<SerialState> nextStates = new ArrayList<>();
+    SerialState greedyState = createSerialState(state, usedQBlkNum, QvMin, QuMin, GMin, QSumBlkCnt, QvMinimumBlockNum);
+    greedyState.greedy = state.greedy;
+    nextStates.add(greedyState);
+
+    if(alternatives)
+    {
+      greedyState.QuGCount = QuMin.BxB(GMin, false).getBlocksCount();
+      greedyState.QuMCount = QuMin.BxB(M, false).getBlocksCount();
+
+      for(int k = 0; k < candidates.length; k++)
+      {
+        SerialCandidate candidate = candidates[k];
+        if(candidate.Qu == QuMin || !candidate.QuGleM || candidate.G.getBlocksCount() > GProb.getBlocksCount()) continue;
+
+        SerialState nextState = createSerialState(state, k / state.Qu.getBlocksCount(), candidate.Qv, candidate.Qu, candidate.G, state.QSumBlkCnt, QvMinimumBlockNum);
+        nextState.QuGCount = candidate.QuG.getBlocksCount();
+        nextState.QuMCount = candidate.QuM.getBlocksCount();
+        nextStates.add(nextState);
+      }
+    }
+
+    return nextStates;
+  }
+
+  // Method creates the state, for which the block "usedQBlkNum" of remaining blocks of blanket Q was added to blankets Qv and Qu.
+  private static SerialState createSerialState(SerialState state, int usedQBlkNum, Blanket Qv, Blanket Qu, Blanket G, int QSumBlkCnt, int QvMinimumBlockNum)
+  {
+    SerialState nextState = new SerialState();
+    nextState.Qv = Qv;
+    nextState.Qu = Qu;
+    nextState.G = G;
+    nextState.QBlocks = new ArrayList<>(state.QBlocks);
+    nextState.QSumNum = state.QSumNum;
+    nextState.QSumBlkCnt = QSumBlkCnt;
+
+    // Computing a number of blocks, which should be summed with the last block of blanket Qv, or in case of creating a new block in blanket Qv
+    if(++nextState.QSumBlkCnt == nextState.QSumNum)
+    {
+      if(QvMinimumBlockNum - Qv.getBlocksCount() > 0)
+      {
+        nextState.QSumNum = (int)Math.ceil((nextState.QBlocks.size() - 1) / (float)(QvMinimumBlockNum - Qv.getBlocksCount()));  // Number of blocks from blanket Q, which should be summed in next block of blanket QvTmp.
+        nextState.QSumBlkCnt = 0;                                                                                                // Number of blocks from blanket Q, which are already summed in the last block of blanket QvTmp.
+      }
+    }
+
+    // Removing used block from blanket Q.
+    nextState.QBlocks.remove(usedQBlkNum);
+
+    return nextState;
+  }
+
+  // Method completes the state of stopped computations: the remaining blocks of blanket Q are added to blankets Qv and Qu as separate blocks, thus the rule
+  // Qu x Qv = Q is still valid. Blanket G = Iv x Qv is the worst case of blanket G for such blanket Qv.
+  private static SerialState finishSerialState(SerialState state, Blanket Iv)
+  {
+    SerialState finalState = new SerialState();
+    finalState.Qv = Blanket.copy(state.Qv);
+    finalState.Qu = Blanket.copy(state.Qu);
+    for(Block block : state.QBlocks)
+    {
+      finalState.Qv.addBlock(block, false);
+      finalState.Qu.addBlock(block, false);
+    }
+
+    finalState.G = (Iv != null ? Iv.BxB(finalState.Qv) : Blanket.copy(finalState.Qv));
+    finalState.QBlocks = Collections.emptyList();
+    return finalState;
+  }
+
+  /**
+   * Method refines the result of the serial decomposition for blanket Qv of the given state: blanket G having the fewest blocks is computed
+   * for blanket Qu, next blanket Qu having the fewest blocks is computed for blanket G, until the number of blocks doesn't decrease.
+   * Other blankets Qv aren't checked.
+   *
+   * @param state final state of the serial decomposition
+   * @param Iv blanket for binary input (may be null)
+   * @param Q blanket Q
+   * @param M blanket M
+   * @param context context of computations
+   * @return improved state (the given state, when blocks of blanket Q can't be represented by masks)
+   */
+  private static SerialState refineSerialState(SerialState state, Blanket Iv, Blanket Q, Blanket M, DecompositionContext context)
+  {
+    // Blocks of blankets Qv and Qu are sums of whole blocks of blanket Q, so they are represented by masks of blocks of blanket Q for the solver.
+    QBlockMasks masks = QBlockMasks.create(Blanket.copy(Q).getBlocks());
+    if(masks == null) return state;
+    long[] QvMasks = masks.getMasks(state.Qv);
+
+    Blanket IvQv = Iv != null ? Iv.BxB(state.Qv) : Blanket.copy(state.Qv);
+    SerialState result = state;
+    while(true)
+    {
+      Blanket GMin = DecompositionsHelpers.generateOptimalBlanket(result.Qu, IvQv, M, context);
+      boolean improved = GMin != null && GMin.getBlocksCount() < result.G.getBlocksCount();
+      Blanket G = improved ? GMin : result.G;
+
+      long[] QuMasks = new QuPartitionSolver(masks.getBlocks(), QvMasks, G, M, context).solve();
+      if(QuMasks == null) context.markPartial();
+      if(QuMasks == null || QuMasks.length >= result.Qu.getBlocksCount())
+      {
+        if(improved)
+        {
+          SerialState improvedState = new SerialState();
+          improvedState.Qv = result.Qv;
+          improvedState.Qu = result.Qu;
+          improvedState.G = G;
+          result = improvedState;
+        }
+
+        return result;
+      }
+
+      // Blocks of blanket Qu are sums of blocks of blanket Q, blocks of the blanket are sorted as in the copy of blanket.
+      Blanket Qu = Blanket.empty();
+      for(long mask : QuMasks)
+      {
+        Block block = null;
+        for(long rest = mask; rest != 0; rest &= rest - 1)
+        {
+          Block QBlock = masks.getBlocks().get(Long.numberOfTrailingZeros(rest));
+          block = block == null ? QBlock : block.getBlockPlus(QBlock);
+        }
+
+        Qu.getBlocks().add(block);
+      }
+
+      SerialState improvedState = new SerialState();
+      improvedState.Qv = result.Qv;
+      improvedState.Qu = Blanket.copy(Qu);
+      improvedState.G = G;
+      result = improvedState;
+    }
+  }
+
+  /**
+   * Method chooses states for the next step of the beam search: "beamWidth" best different states, including the state chosen by the greedy algorithm.
+   *
+   * @param nextStates next states of each state of the beam (the state chosen by the greedy algorithm is the first one)
+   * @param beamWidth number of kept states
+   * @return chosen states, the best state is the first one
+   */
+  private static List<SerialState> selectSerialStates(List<List<SerialState>> nextStates, int beamWidth)
+  {
+    if(beamWidth == 1) return Collections.singletonList(nextStates.get(0).get(0));
+
+    List<SerialState> allStates = new ArrayList<>();
+    for(List<SerialState> states : nextStates) allStates.addAll(states);
+    allStates.sort(SERIAL_STATE_ORDER);
+
+    // States having the same blankets Qv and Qu (and the same way of summing next blocks) are duplicates.
+    Map<List<Object>, SerialState> fingerprints = new HashMap<>();
+    List<SerialState> chosenStates = new ArrayList<>();
+    SerialState greedyState = null;
+    for(SerialState state : allStates)
+    {
+      List<Object> fingerprint = new ArrayList<>();
+      for(Block block : state.Qv.getBlocks()) fingerprint.add(new BlockKey(block));
+      fingerprint.add(null);
+      for(Block block : state.Qu.getBlocks()) fingerprint.add(new BlockKey(block));
+      fingerprint.add(state.QSumNum);
+      fingerprint.add(state.QSumBlkCnt);
+
+      SerialState firstState = fingerprints.putIfAbsent(fingerprint, state);
+      if(firstState == null && chosenStates.size() < beamWidth) chosenStates.add(state);
+      if(state.greedy) greedyState = firstState != null ? firstState : state;
+    }
+
+    if(!chosenStates.contains(greedyState)) chosenStates.set(chosenStates.size() - 1, greedyState);
+    greedyState.greedy = true;
+
+    return chosenStates;
+  }
+
+  // Partial result of the serial decomposition: block of blanket Q summed with the last block of blanket Qv and with a block of blanket Qu.
+  private static final class SerialCandidate
+  {
+    Blanket Qv;
+    Blanket Qu;
+    Blanket G;
+    Blanket QuG;
+    Blanket QuM;
+    boolean QuGleM;  // Value "true" means that there is Qu x G <= M relation.
+  }
+
+  /**
+   * Method evaluates (in parallel) all candidates of the step of the serial decomposition: each remaining block of blanket Q is summed with
+   * the last block of blanket Qv (or added as a new block) and with each block of blanket Qu (or added as a new block, when blocks can't be summed).
+   *
+   * @param Iv blanket for binary input (may be null)
+   * @param state state of the serial decomposition (blankets Qv and Qu computed so far and remaining blocks of blanket Q)
+   * @param newQvBlock if true, blocks of Q are added to blanket Qv as a new block
+   * @param M blanket M
+   * @param MCache cache of covers of blocks for blanket M
+   * @param context context of computations
+   * @return candidates, the candidate for block i of Q and block j of Qu is at position i * Qu.getBlocksCount() + j (null, when computations were stopped)
+   */
+  private static SerialCandidate[] evaluateSerialCandidates(Blanket Iv, SerialState state, boolean newQvBlock, Blanket M, CompatibilityCache MCache,
+                                                            DecompositionContext context)
+  {
+    Blanket Qv = Blanket.copy(state.Qv);
+    Blanket Qu = Blanket.copy(state.Qu);
+    List<Block> QBlocks = state.QBlocks;
+
+    // Blankets QvTmp differ from blanket Qv by one block only, so products Iv x QvTmp are computed from products of the unchanged blocks.
+    BlanketProduct IvQv = Iv != null ? BlanketProduct.create(Iv, Qv, !newQvBlock) : null;
+
+    Blanket[] QvTmps = new Blanket[QBlocks.size()];
+    Blanket[] GTmps = new Blanket[QBlocks.size()];
+    IntStream.range(0, QBlocks.size()).parallel().forEach(i ->
+    {
+      Blanket QvTmp = Blanket.copy(Qv);
+
+      // Adding the block of blanket Q to the block of blanket Qv, whem the number of summed blocks is less than the assumed number (value is computed in each step of the loop).
+      // Otherwise, a new block in blanket Qv is created.
+      if(newQvBlock)
+      {
+        // There will be created a new block in blanket QvTmp.
+        QvTmp.addBlock(QBlocks.get(i));
+      }
+      else
+      {
+        int QvTmpBlkPos = QvTmp.getBlocksCount() - 1;
+        QvTmp.getBlocks().set(QvTmpBlkPos, QvTmp.getBlocks().get(QvTmpBlkPos).getBlockPlus(QBlocks.get(i)));
+      }
+
+      QvTmps[i] = QvTmp;
+      GTmps[i] = (IvQv != null ? IvQv.BxB(newQvBlock ? QBlocks.get(i) : QvTmp.getBlocks().get(QvTmp.getBlocksCount() - 1)) : Blanket.copy(QvTmp));
+    });
+
+    SerialCandidate[] candidates = new SerialCandidate[QBlocks.size() * Qu.getBlocksCount()];
+    IntStream.range(0, candidates.length).parallel().forEach(k ->
+    {
+      if(context.isStopped()) return;
+
+      int i = k / Qu.getBlocksCount();
+      int j = k % Qu.getBlocksCount();
+      Blanket QvTmp = QvTmps[i];
+      Blanket QuTmp = Blanket.copy(Qu);
+
+      // Checking whether selected block of blanket Qu (candidate for adding currently processed block of blanket Q) has no blocks in common with
+      // the last block of blanket Qv. In this case the product of those blankets results with empty blanket.
+      Block QvBlkMulQuBlk = QvTmp.getBlocks().get(QvTmp.getBlocksCount() - 1).getBlockMul(QuTmp.getBlocks().get(j));
+      if(QvBlkMulQuBlk.isEmpty())
+      {
+        QuTmp.getBlocks().set(j, QuTmp.getBlocks().get(j).getBlockPlus(QBlocks.get(i)));
+      }
+      else
+        QuTmp.addBlock(QBlocks.get(i));
+
+      // Computing the measures allowing for evaluation of chosen partial result.
+      // It was observed that the best result was obtained when in partial blankets G and Qu number of blocks is the smallest.
+      SerialCandidate candidate = new SerialCandidate();
+      candidate.Qv = QvTmp;
+      candidate.Qu = QuTmp;
+      candidate.G = DecompositionsHelpers.generateMinimalBlanket(QuTmp, GTmps[i], MCache, context);
+      candidate.QuG = QuTmp.BxB(candidate.G, false);
+      candidate.QuM = QuTmp.BxB(M, false);
+      candidate.QuGleM = candidate.QuG.BleB(M);
+      candidates[k] = candidate;
+    });
+
+    return candidates;
+  }
 }
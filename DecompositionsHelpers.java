@@ -24,7 +24,13 @@ package decolib.decompositions;
 import decolib.blankets.Blanket;
 import decolib.blankets.Block;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 /**
  * Contains decomposition helper methods.
@@ -51,47 +57,309 @@ public class DecompositionsHelpers
    */
   public static Blanket generateMinimalBlanket(Blanket A, Blanket B, Blanket F)
   {
-    Blanket Q = Blanket.empty();
+    return generateMinimalBlanket(A, B, F, (DecompositionContext)null);
+  }
+
+  /**
+   * Method, using blocks from blanket B, finds the minimal blanket Q, which fulfils the relation A x Q &lt;= F. The method
+   * is similar to "generateMinimalBlanket(A, B, F)", the difference is that computations may be stopped by the context. Then
+   * the blocks summed so far are returned, together with the not used blocks of blanket B (as separate blocks), and the context
+   * is marked as having the partial result.
+   *
+   * @param A blanket, the first parameter (may be null)
+   * @param B blanket from which blocks should be used to construct the blanket Q
+   * @param F blanket, the third parameter
+   * @param context context of computations (may be null)
+   * @return minimal blanket Q, which fulfills relation (A x Q &lt;= F)
+   */
+  public static Blanket generateMinimalBlanket(Blanket A, Blanket B, Blanket F, DecompositionContext context)
+  {
     List<Block> bBlocks = Blanket.copy(B).getBlocks();
+    return generateMinimalBlanket(bBlocks, new CoverageTracker(A, bBlocks, F), context);
+  }
+
+  /**
+   * Method, using blocks from blanket B, finds the minimal blanket Q, which fulfils the relation A x Q &lt;= F, where F is
+   * the blanket of the given cache. The result is the same as the result of "generateMinimalBlanket(A, B, F)", but covers
+   * of blocks (the blocks of F including common parts of blocks of A and B) are taken from the cache - this speeds up many
+   * calls for similar blankets A and B, and the same blanket F.
+   *
+   * @param A blanket, the first parameter (may be null)
+   * @param B blanket from which blocks should be used to construct the blanket Q
+   * @param cache cache of covers of blocks for blanket F
+   * @return minimal blanket Q, which fulfills relation (A x Q &lt;= F)
+   */
+  public static Blanket generateMinimalBlanket(Blanket A, Blanket B, CompatibilityCache cache)
+  {
+    return generateMinimalBlanket(A, B, cache, null);
+  }
+
+  /**
+   * Method, using blocks from blanket B, finds the minimal blanket Q, which fulfils the relation A x Q &lt;= F, where F is
+   * the blanket of the given cache. Computations may be stopped by the context, as in "generateMinimalBlanket(A, B, F, context)".
+   *
+   * @param A blanket, the first parameter (may be null)
+   * @param B blanket from which blocks should be used to construct the blanket Q
+   * @param cache cache of covers of blocks for blanket F
+   * @param context context of computations (may be null)
+   * @return minimal blanket Q, which fulfills relation (A x Q &lt;= F)
+   */
+  public static Blanket generateMinimalBlanket(Blanket A, Blanket B, CompatibilityCache cache, DecompositionContext context)
+  {
+    List<Block> bBlocks = Blanket.copy(B).getBlocks();
+    return generateMinimalBlanket(bBlocks, new CoverageTracker(A, bBlocks, cache.getBlanket(), null, cache), context);
+  }
+
+  /**
+   * Method, using blocks from blanket B, finds the minimal blanket Q, which fulfils the relation A x Q &lt;= F. The method
+   * runs "generateMinimalBlanket(A, B, F)" for the given number of orders of blocks of blanket B in parallel, and returns
+   * the blanket having the fewest blocks. The first order is the order of the basic method, the next ones are random
+   * permutations, generated from the given seed - thus the result is the same for the same seed.
+   *
+   * @param A blanket, the first parameter (may be null)
+   * @param B blanket from which blocks should be used to construct the blanket Q
+   * @param F blanket, the third parameter
+   * @param starts number of orders of blocks of blanket B, which should be checked
+   * @param seed seed of random permutations of blocks of blanket B
+   * @return minimal blanket Q, which fulfills relation (A x Q &lt;= F)
+   * @throws IllegalArgumentException when the number of orders is lower than 1
+   */
+  public static Blanket generateMinimalBlanket(Blanket A, Blanket B, Blanket F, int starts, long seed)
+  {
+    if(starts < 1) throw new IllegalArgumentException(String.format("Number of orders should be positive, given %s", starts));
+
+    List<Block> bBlocks = Blanket.copy(B).getBlocks();
+    CompatibilityGraph graph = bBlocks.size() >= CompatibilityGraph.MIN_BLOCKS ?
+      new CompatibilityGraph(CoverageTracker.getBlocks(A), bBlocks, F.getBlocks(), null) : null;
+
+    Random random = new Random(seed);
+    int[][] orders = new int[starts][];
+    for(int s = 0; s < starts; s++)
+    {
+      orders[s] = IntStream.range(0, bBlocks.size()).toArray();
+      for(int i = bBlocks.size() - 1; s > 0 && i > 0; i--)
+      {
+        int j = random.nextInt(i + 1);
+        int tmp = orders[s][i];
+        orders[s][i] = orders[s][j];
+        orders[s][j] = tmp;
+      }
+    }
+
+    Blanket[] results = new Blanket[starts];
+    IntStream.range(0, starts).parallel().forEach(s -> {
+      List<Block> orderedBlocks = new ArrayList<>();
+      for(int i : orders[s]) orderedBlocks.add(bBlocks.get(i));
+      results[s] = generateMinimalBlanket(orderedBlocks, new CoverageTracker(A, orderedBlocks, F, graph != null ? graph.permute(orders[s]) : null, null), null);
+    });
+
+    Blanket Q = null;
+    for(Blanket result : results)  // The earlier order wins a tie.
+      if(result != null && (Q == null || result.getBlocksCount() < Q.getBlocksCount())) Q = result;
+
+    return Q;
+  }
+
+  // Method implements "generateMinimalBlanket(A, B, F)" for the given blocks of blanket B, which are changed by the method.
+  private static Blanket generateMinimalBlanket(List<Block> bBlocks, CoverageTracker tracker, DecompositionContext context)
+  {
+    Blanket Q = Blanket.empty();
     int bBlocksCnt = bBlocks.size();
     boolean used;
 
     do {
       used = false;
       Block blockQ = null;
+      tracker.reset();
 
       if(bBlocksCnt > 0)
       {
-        for(int i = bBlocks.size() - 1; i >= 0; i--)
+        for(int i = bBlocks.size() - 1; i >= 0 && !isStopped(context); i--)
         {
-          if(bBlocks.get(i) != null)
+          // Relation (A x tmpBlockQ) <= F is checked incrementally, only for the block of B which is summed with blockQ.
+          if(bBlocks.get(i) != null && tracker.check(i))
           {
+            // Execution of program in this place indicates, that blockQ fulfills relation (A x blockQ) <= F, ie. there will be no incompatible blocks between
+            // product blanket of (A x blockQ) and blanket F.
+            tracker.commit();
             Block tmpBlockQ = blockQ != null ? blockQ.getBlockPlus(bBlocks.get(i)) : Block.copyBlock(bBlocks.get(i));
-            if((A != null && A.BxB(Blanket.create(tmpBlockQ), false).BleB(F)) || Blanket.create(tmpBlockQ).BleB(F))
+            if(--bBlocksCnt == 0)
             {
-              // Execution of program in this place indicates, that blockQ fulfills relation (A x blockQ) <= F, ie. there will be no incompatible blocks between
-              // product blanket of (A x blockQ) and blanket F.
-              if(--bBlocksCnt == 0)
-              {
-                Q.addBlock(tmpBlockQ, true);  // Adda block to Q blanket, with sorting of blanket for synthesis purpose.
-                return Q;
-              }
-
-              blockQ = tmpBlockQ;
-              bBlocks.set(i, null);  // Setting null means that the block on given position has been used.
-              used = true;
+              Q.addBlock(tmpBlockQ, true);  // Adda block to Q blanket, with sorting of blanket for synthesis purpose.
+              return Q;
             }
+
+            blockQ = tmpBlockQ;
+            bBlocks.set(i, null);  // Setting null means that the block on given position has been used.
+            used = true;
           }
         }
 
         if(used)
           Q.addBlock(blockQ, false);  // Adda block to Q2 blanket, without sorting of blanket.
+
+        if(isStopped(context))
+        {
+          // Not used blocks of blanket B are added to Q as separate blocks, if each of them fulfils the relation itself (otherwise the method would return null anyway).
+          for(int i = bBlocks.size() - 1; i >= 0; i--)
+          {
+            if(bBlocks.get(i) != null)
+            {
+              tracker.reset();
+              if(!tracker.check(i)) return null;
+              Q.addBlock(bBlocks.get(i), false);
+            }
+          }
+
+          context.markPartial();
+          return Q.sortBlocks(true);
+        }
       }
     } while(used);
 
     return null;
   }
 
+  static boolean isStopped(DecompositionContext context)
+  {
+    return context != null && context.isStopped();
+  }
+
+  /**
+   * Method, using blocks from blanket B, finds the minimal blanket Q, which fulfils the relation A x Q &lt;= F. The method
+   * is similar to "generateMinimalBlanket(A, B, F)", the difference is the order in which blocks of blanket B are summed:
+   * the first block of each block of Q is chosen as in the basic method, next the remaining blocks are tried in order
+   * given by the scoring function, computed for the block built so far (the highest score is tried first).
+   *
+   * @param A blanket, the first parameter (may be null)
+   * @param B blanket from which blocks should be used to construct the blanket Q
+   * @param F blanket, the third parameter
+   * @param score scoring function, which chooses the next block of blanket B to be summed
+   * @return minimal blanket Q, which fulfills relation (A x Q &lt;= F)
+   */
+  public static Blanket generateMinimalBlanket(Blanket A, Blanket B, Blanket F, BlockScore score)
+  {
+    Blanket Q = Blanket.empty();
+    List<Block> bBlocks = Blanket.copy(B).getBlocks();
+    int bBlocksCnt = bBlocks.size();
+    boolean[] tried = new boolean[bBlocks.size()];
+    CoverageTracker tracker = new CoverageTracker(A, bBlocks, F);
+    boolean used;
+
+    do {
+      used = false;
+      Block blockQ = null;
+      tracker.reset();
+
+      if(bBlocksCnt > 0)
+      {
+        Arrays.fill(tried, false);
+        for(int i = nextScoredBlock(bBlocks, tried, null, score); i >= 0; i = nextScoredBlock(bBlocks, tried, blockQ, score))
+        {
+          tried[i] = true;
+
+          if(tracker.check(i))
+          {
+            tracker.commit();
+            Block tmpBlockQ = blockQ != null ? blockQ.getBlockPlus(bBlocks.get(i)) : Block.copyBlock(bBlocks.get(i));
+            if(--bBlocksCnt == 0)
+            {
+              Q.addBlock(tmpBlockQ, true);  // Adda block to Q blanket, with sorting of blanket for synthesis purpose.
+              return Q;
+            }
+
+            blockQ = tmpBlockQ;
+            bBlocks.set(i, null);  // Setting null means that the block on given position has been used.
+            used = true;
+          }
+        }
+
+        if(used)
+          Q.addBlock(blockQ, false);  // Adda block to Q blanket, without sorting of blanket.
+      }
+    } while(used);
+
+    return null;
+  }
+
+  /**
+   * Method, using blocks from blanket B, finds the blanket Q having the fewest blocks, which fulfils the relation A x Q &lt;= F.
+   * Each block of Q is the sum of blocks of B. The result of "generateMinimalBlanket(A, B, F)" is improved by the branch
+   * and bound search (see MinimalBlanketSolver), which is stopped when the time limit expires - then the best blanket
+   * found so far is returned.
+   *
+   * @param A blanket, the first parameter (may be null)
+   * @param B blanket from which blocks should be used to construct the blanket Q
+   * @param F blanket, the third parameter
+   * @param timeLimit time limit of the search in milliseconds
+   * @return blanket Q having the fewest blocks, which fulfills relation (A x Q &lt;= F), or the best blanket found within the time limit
+   */
+  public static Blanket generateOptimalBlanket(Blanket A, Blanket B, Blanket F, long timeLimit)
+  {
+    return generateOptimalBlanket(A, B, F, DecompositionContext.create().setTimeLimit(timeLimit));
+  }
+
+  /**
+   * Method, using blocks from blanket B, finds the blanket Q having the fewest blocks, which fulfils the relation A x Q &lt;= F.
+   * The method is similar to "generateOptimalBlanket(A, B, F, timeLimit)", the difference is that the search is stopped by
+   * the context. When the search is stopped, the best blanket found so far is returned, and the context is marked as having
+   * the partial result.
+   *
+   * @param A blanket, the first parameter (may be null)
+   * @param B blanket from which blocks should be used to construct the blanket Q
+   * @param F blanket, the third parameter
+   * @param context context of computations (may be null, then the search isn't stopped)
+   * @return blanket Q having the fewest blocks, which fulfills relation (A x Q &lt;= F), or the best blanket found before stopping
+   */
+  public static Blanket generateOptimalBlanket(Blanket A, Blanket B, Blanket F, DecompositionContext context)
+  {
+    Blanket greedyQ = generateMinimalBlanket(A, B, F, context);
+    if(greedyQ == null || isStopped(context)) return greedyQ;
+
+    List<Block> bBlocks = Blanket.copy(B).getBlocks();
+    int[] groups = new MinimalBlanketSolver(CoverageTracker.getBlocks(A), bBlocks, F.getBlocks(),
+      greedyQ.getBlocksCount(), context).solve();
+    if(groups == null) return greedyQ;
+
+    // Blocks of each group are summed in the same order as in "generateMinimalBlanket(A, B, F)", so they are named in the same way.
+    Blanket Q = Blanket.empty();
+    for(int g = 0; g <= Arrays.stream(groups).max().getAsInt(); g++)
+    {
+      Block blockQ = null;
+      for(int i = bBlocks.size() - 1; i >= 0; i--)
+        if(groups[i] == g) blockQ = blockQ != null ? blockQ.getBlockPlus(bBlocks.get(i)) : Block.copyBlock(bBlocks.get(i));
+
+      Q.addBlock(blockQ, false);
+    }
+
+    return Q.sortBlocks(true);
+  }
+
+  // Method returns position of the not used and not tried block of blanket B, having the highest score (or -1). When no block
+  // was summed yet, the last block is returned, as in the basic method. Ties are resolved in favour of the later block.
+  private static int nextScoredBlock(List<Block> bBlocks, boolean[] tried, Block blockQ, BlockScore score)
+  {
+    int bestPos = -1;
+    double bestScore = 0;
+
+    for(int i = bBlocks.size() - 1; i >= 0; i--)
+    {
+      if(bBlocks.get(i) != null && !tried[i])
+      {
+        if(blockQ == null) return i;
+
+        double blockScore = score.score(blockQ, bBlocks.get(i));
+        if(bestPos < 0 || blockScore > bestScore)
+        {
+          bestPos = i;
+          bestScore = blockScore;
+        }
+      }
+    }
+
+    return bestPos;
+  }
+
   /**
    * Method, using blocks from blanket B, finds the minimal blanket Q, which fulfils the relation Q &lt;= F. The method
    * is similar to "generateMinimalBlanket(A, B, F)", the difference is there is no blanket A.
@@ -105,33 +373,34 @@ public class DecompositionsHelpers
     Blanket Q = Blanket.empty();
     List<Block> bBlocks = Blanket.copy(B).getBlocks();
     int bBlocksCnt = bBlocks.size();
+    CoverageTracker tracker = new CoverageTracker(null, bBlocks, F);
     boolean used;
 
     do {
       used = false;
       Block blockQ = null;
+      tracker.reset();
 
       if(bBlocksCnt > 0)
       {
         for(int i = bBlocks.size() - 1; i >= 0; i--)
         {
-          if(bBlocks.get(i) != null)
+          // Relation tmpBlockQ <= F is checked only for the blocks of F, which include blockQ.
+          if(bBlocks.get(i) != null && tracker.check(i))
           {
+            // Execution of program in this place indicates, that blockQ fulfills relation (B_A x blockQ) <= B_F, ie. there will be no incompatible blocks between
+            // product blanket of (B_A x blockQ) and blanket B_F.
+            tracker.commit();
             Block tmpBlockQ = blockQ != null ? blockQ.getBlockPlus(bBlocks.get(i)) : Block.copyBlock(bBlocks.get(i));
-            if(Blanket.create(tmpBlockQ).BleB(F))
+            if(--bBlocksCnt == 0)
             {
-              // Execution of program in this place indicates, that blockQ fulfills relation (B_A x blockQ) <= B_F, ie. there will be no incompatible blocks between
-              // product blanket of (B_A x blockQ) and blanket B_F.
-              if(--bBlocksCnt == 0)
-              {
-                Q.addBlock(tmpBlockQ, true);  // Adda block to Q blanket, with sorting of blanket for synthesis purpose.
-                return Q;
-              }
-
-              blockQ = tmpBlockQ;
-              bBlocks.set(i, null);  // Setting null means that the block, on given position, has been used.
-              used = true;
+              Q.addBlock(tmpBlockQ, true);  // Adda block to Q blanket, with sorting of blanket for synthesis purpose.
+              return Q;
             }
+
+            blockQ = tmpBlockQ;
+            bBlocks.set(i, null);  // Setting null means that the block, on given position, has been used.
+            used = true;
           }
         }
 
@@ -154,42 +423,55 @@ public class DecompositionsHelpers
    * @return minimal blanket Q2, which fulfills relations: (A x Q2 &lt;= F) and (Q1 x Q2 = B)
    */
   public static Blanket generateMinimalBlanket(Blanket A, Blanket B, Blanket Q1, Blanket F)
+  {
+    return generateMinimalBlanket(A, B, Q1, F, null);
+  }
+
+  /**
+   * Method, using blocks from blanket B, finds the minimal blanket Q2, which fulfils the relations: A x Q2 &lt;= F and Q1 x Q2 = B. The method
+   * is similar to "generateMinimalBlanket(A, B, Q1, F)", the difference is that computations may be stopped by the context, as in
+   * "generateMinimalBlanket(A, B, F, context)".
+   *
+   * @param A blanket, the first parameter
+   * @param B blanket from which blocks should be used to construct the blanket Q
+   * @param Q1 blanket, a part of the second relation, which should be fulfilled
+   * @param F blanket, the forth parameter
+   * @param context context of computations (may be null)
+   * @return minimal blanket Q2, which fulfills relations: (A x Q2 &lt;= F) and (Q1 x Q2 = B)
+   */
+  public static Blanket generateMinimalBlanket(Blanket A, Blanket B, Blanket Q1, Blanket F, DecompositionContext context)
   {
     Blanket Q2 = Blanket.empty();
     List<Block> bBlocks = Blanket.copy(B).getBlocks();
     int bBlocksCnt = bBlocks.size();
+    CoverageTracker tracker = new CoverageTracker(A, bBlocks, F);
+    Set<BlockKey> bKeys = new HashSet<>();
+    for(Block blockB : B.getBlocks()) bKeys.add(new BlockKey(blockB));
     boolean used;
 
     do {
       used = false;
       Block blockQ2 = null;
+      tracker.reset();
 
       if(bBlocksCnt > 0)
       {
-        for(int i = bBlocks.size() - 1; i >= 0; i--)
+        for(int i = bBlocks.size() - 1; i >= 0 && !isStopped(context); i--)
         {
           if(bBlocks.get(i) != null)
           {
-            Block tmpBlockQ2 = blockQ2 != null ? blockQ2.getBlockPlus(bBlocks.get(i)) : Block.copyBlock(bBlocks.get(i));
-            if(A.BxB(Blanket.create(tmpBlockQ2), false).BleB(F))
+            if(tracker.check(i))
             {
+              Block tmpBlockQ2 = blockQ2 != null ? blockQ2.getBlockPlus(bBlocks.get(i)) : Block.copyBlock(bBlocks.get(i));
+
               // Execution of program in this place indicates, that blockQ fulfills relation (A x blockQ) <= F, i.e. there will be no incompatible blocks between
               // the product of blanket (A x blockQ) and blanket F.
               // Now, there will be check whether relation (blockQ * Q1) = B is fulfilled. In practice it comes down to checking whether the new block (from summing),
               // after multiplication with blanket Q1 do not generate an incompatible block with blanket B. In the following algorithm there will be checked whether the
               // new block (from summing), after multiplication with blanket Q1 generates a block, which is present in blanket B and is in equality with that block from blanket B.
-              boolean valid = true;
-              checkBlocksQ1Q2: for(Block block : Q1.BxB(Blanket.create(tmpBlockQ2), false).getBlocks())
-              {
-                for(Block blockB : B.getBlocks())
-                  if(block.getBlockEq(blockB)) continue checkBlocksQ1Q2;
-
-                valid = false;
-                break;
-              }
-
-              if(valid)
+              if(isProductInB(Q1, tmpBlockQ2, bKeys))
               {
+                tracker.commit();
                 if(--bBlocksCnt == 0)
                 {
                   Q2.addBlock(tmpBlockQ2, true);  // Adda block to Q2 blanket, with sorting of blanket for synthesis purpose.
@@ -206,9 +488,51 @@ public class DecompositionsHelpers
 
         if(used)
           Q2.addBlock(blockQ2, false);  // Adda block to Q2 blanket, without sorting of blanket.
+
+        if(isStopped(context))
+        {
+          // Not used blocks of blanket B are added to Q2 as separate blocks, if each of them fulfils the relations itself.
+          for(int i = bBlocks.size() - 1; i >= 0; i--)
+          {
+            if(bBlocks.get(i) != null)
+            {
+              tracker.reset();
+              if(!tracker.check(i) || !isProductInB(Q1, bBlocks.get(i), bKeys)) return null;
+              Q2.addBlock(bBlocks.get(i), false);
+            }
+          }
+
+          context.markPartial();
+          return Q2.sortBlocks(true);
+        }
       }
     } while(used);
 
     return null;
   }
+
+  // Method checks whether each block of the product (Q1 x blockQ2) is present in blanket B, given by the set of its blocks. Blocks
+  // of the product are checked one by one, without creating the product blanket. As in the product blanket, blocks included in
+  // another (greater) block of the product are skipped.
+  private static boolean isProductInB(Blanket Q1, Block blockQ2, Set<BlockKey> bKeys)
+  {
+    List<Block> products = new ArrayList<>();
+    for(Block blockQ1 : Q1.getBlocks())
+    {
+      Block product = blockQ1.getBlockMul(blockQ2);
+      if(!product.isEmpty()) products.add(product);
+    }
+
+    nextProduct: for(Block product : products)
+    {
+      if(bKeys.contains(new BlockKey(product))) continue;
+
+      for(Block otherProduct : products)
+        if(product.getBlockLe(otherProduct) && !product.getBlockEq(otherProduct)) continue nextProduct;
+
+      return false;
+    }
+
+    return true;
+  }
 }
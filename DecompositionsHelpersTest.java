@@ -41,4 +41,106 @@ public class DecompositionsHelpersTest
     Assertions.assertThat(βQ.toString()).isEqualTo("Blanket{blocks=[12,13; 7,8,9; 14,15,18,19; 16,17,24,25;]}");
     Assertions.assertThat(βB.BeqB(βQ.BxB(βX))).isTrue();
   }
+
+  @Test
+  public void decompositionsHelpers_test3()
+  {
+    Blanket βA = Blanket.create("A1:1,5,8,10,13,17,18,21,25; A2:2,4,19,20,23,24; A3:3,7,11,12,15,16; A4:6,9,14,22;");
+    Blanket βB = Blanket.create("B1:1,2,3; B2:4,5,6; B3:7,8,9; B4:10,11; B5:12,13; B6:14,15; B7:16,17; B8:18,19; B9:20,21; B10:22,23; B11:24,25;");
+    Blanket βF = Blanket.create("F1:1,2,3; F2:4,5,6; F3:7,8,9; F4:10,11; F5:12,13; F6:14,15; F7:16,17; F8:18,19; F9:20,21; F10:22,23; F11:24,25;");
+
+    Assertions.assertThat(βB.getBlock("B1").intersectionSize(βA.getBlock("A1"))).isEqualTo(1);
+    Assertions.assertThat(βB.getBlock("B1").unionSize(βA.getBlock("A1"))).isEqualTo(11);
+    Assertions.assertThat(βA.getBlock("A1").differenceSize(βB.getBlock("B1"))).isEqualTo(8);
+    Assertions.assertThat(βB.getBlock("B1").jaccard(βA.getBlock("A1"))).isEqualTo(1 / 11.0);
+
+    for(BlockScore score : new BlockScore[] {BlockScore.JACCARD, BlockScore.INTERSECTION, (blockQ, candidate) -> -candidate.jaccard(blockQ)})
+    {
+      Blanket βQ = DecompositionsHelpers.generateMinimalBlanket(βA, βB, βF, score);
+      Assertions.assertThat(βQ).isNotNull();
+      Assertions.assertThat(βQ.getBlocksCount()).isEqualTo(9);
+      Assertions.assertThat(βA.BxB(βQ).BleB(βF)).isTrue();
+    }
+  }
+
+  @Test
+  public void decompositionsHelpers_test4()
+  {
+    // Blanket B with many blocks, which are checked with the compatibility graph.
+    Blanket βA = Blanket.create("A1:1,5,8,10,13,17,18,21,25; A2:2,4,19,20,23,24; A3:3,7,11,12,15,16; A4:6,9,14,22;");
+    Blanket βF = Blanket.create("F1:1,2,3; F2:4,5,6; F3:7,8,9; F4:10,11; F5:12,13; F6:14,15; F7:16,17; F8:18,19; F9:20,21; F10:22,23; F11:24,25;");
+    StringBuilder blocks = new StringBuilder();
+    for(int term = 1; term <= 25; term++) blocks.append("B").append(term).append(":").append(term).append(";");
+    Blanket βB = Blanket.create(blocks.toString());
+
+    Blanket βQ = DecompositionsHelpers.generateMinimalBlanket(βA, βB, βF);
+    Assertions.assertThat(βQ).isNotNull();
+    Assertions.assertThat(βQ.getBlocksCount()).isEqualTo(9);
+    Assertions.assertThat(βA.BxB(βQ).BleB(βF)).isTrue();
+    Assertions.assertThat(βQ.toString()).isEqualTo("Blanket{blocks=[B1:1; B5:5; B8:8; B10+B3+B2:2,3,10; B13+B7+B4:4,7,13; B19+B17+B11+B6:6,11,17,19; B20+B18+B12+B9:9,12,18,20; " +
+      "B23+B21+B15+B14:14,15,21,23; B25+B24+B22+B16:16,22,24,25;]}");
+
+    Assertions.assertThat(DecompositionsHelpers.generateMinimalBlanket(βB, βF).BeqB(βF)).isTrue();
+  }
+
+  @Test
+  public void decompositionsHelpers_test5()
+  {
+    Blanket βB = Blanket.create("B1:1; B2:2; B3:3; B4:4;");
+    Blanket βF = Blanket.create("F1:2,4; F2:1,3; F3:3,4;");
+    Assertions.assertThat(DecompositionsHelpers.generateMinimalBlanket(βB, βF).getBlocksCount()).isEqualTo(3);
+
+    Blanket βQ = DecompositionsHelpers.generateOptimalBlanket(null, βB, βF, 1000);
+    Assertions.assertThat(βQ).isNotNull();
+    Assertions.assertThat(βQ.toString()).isEqualTo("Blanket{blocks=[B3+B1:1,3; B4+B2:2,4;]}");
+
+    Blanket βA = Blanket.create("A1:1,5,8,10,13,17,18,21,25; A2:2,4,19,20,23,24; A3:3,7,11,12,15,16; A4:6,9,14,22;");
+    βB = Blanket.create("B1:1,2,3; B2:4,5,6; B3:7,8,9; B4:10,11; B5:12,13; B6:14,15; B7:16,17; B8:18,19; B9:20,21; B10:22,23; B11:24,25;");
+    βF = Blanket.create("F1:1,2,3; F2:4,5,6; F3:7,8,9; F4:10,11; F5:12,13; F6:14,15; F7:16,17; F8:18,19; F9:20,21; F10:22,23; F11:24,25;");
+    βQ = DecompositionsHelpers.generateOptimalBlanket(βA, βB, βF, 1000);
+    Assertions.assertThat(βQ.getBlocksCount()).isEqualTo(9);
+    Assertions.assertThat(βA.BxB(βQ).BleB(βF)).isTrue();
+  }
+
+  @Test
+  public void decompositionsHelpers_test6()
+  {
+    Blanket βA = Blanket.create("A1:1,5,8,10,13,17,18,21,25; A2:2,4,19,20,23,24; A3:3,7,11,12,15,16; A4:6,9,14,22;");
+    Blanket βF = Blanket.create("F1:1,2,3; F2:4,5,6; F3:7,8,9; F4:10,11; F5:12,13; F6:14,15; F7:16,17; F8:18,19; F9:20,21; F10:22,23; F11:24,25;");
+    StringBuilder blocks = new StringBuilder();
+    for(int term = 1; term <= 25; term++) blocks.append("B").append(term).append(":").append(term).append(";");
+    Blanket βB = Blanket.create(blocks.toString());
+
+    // The first order is the order of the basic method.
+    Blanket βQ = DecompositionsHelpers.generateMinimalBlanket(βA, βB, βF, 1, 7);
+    Assertions.assertThat(βQ.toString()).isEqualTo(DecompositionsHelpers.generateMinimalBlanket(βA, βB, βF).toString());
+
+    βQ = DecompositionsHelpers.generateMinimalBlanket(βA, βB, βF, 16, 7);
+    Assertions.assertThat(βQ.getBlocksCount() <= 9).isTrue();
+    Assertions.assertThat(βA.BxB(βQ).BleB(βF)).isTrue();
+    Assertions.assertThat(βQ.toString()).isEqualTo(DecompositionsHelpers.generateMinimalBlanket(βA, βB, βF, 16, 7).toString());
+  }
+
+  @Test
+  public void decompositionsHelpers_test7()
+  {
+    Blanket βA = Blanket.create("A1:1,5,8,10,13,17,18,21,25; A2:2,4,19,20,23,24; A3:3,7,11,12,15,16; A4:6,9,14,22;");
+    Blanket βB = Blanket.create("B1:1,2,3; B2:4,5,6; B3:7,8,9; B4:10,11; B5:12,13; B6:14,15; B7:16,17; B8:18,19; B9:20,21; B10:22,23; B11:24,25;");
+    Blanket βF = Blanket.create("F1:1,2,3; F2:4,5,6; F3:7,8,9; F4:10,11; F5:12,13; F6:14,15; F7:16,17; F8:18,19; F9:20,21; F10:22,23; F11:24,25;");
+
+    // Covers stored by the first call are used by the next ones.
+    CompatibilityCache cache = CompatibilityCache.create(βF);
+    for(int i = 0; i < 2; i++)
+    {
+      Assertions.assertThat(DecompositionsHelpers.generateMinimalBlanket(βA, βB, cache).toString()).isEqualTo(DecompositionsHelpers.generateMinimalBlanket(βA, βB, βF).toString());
+      Assertions.assertThat(DecompositionsHelpers.generateMinimalBlanket(null, βB, cache).toString()).isEqualTo(DecompositionsHelpers.generateMinimalBlanket(βB, βF).toString());
+    }
+
+    // Only terms present in blanket F are indexed.
+    βA = Blanket.create("A1:1,1000; A2:100,5000;");
+    βB = Blanket.create("B1:1,100; B2:1000,5000;");
+    βF = Blanket.create("F1:1,100; F2:1000; F3:5000;");
+    cache = CompatibilityCache.create(βF);
+    Assertions.assertThat(DecompositionsHelpers.generateMinimalBlanket(βA, βB, cache).toString()).isEqualTo(DecompositionsHelpers.generateMinimalBlanket(βA, βB, βF).toString());
+  }
 }
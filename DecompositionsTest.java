@@ -2,9 +2,22 @@ package decolib.decompositions;
 
 import decolib.blankets.Blanket;
 import decolib.decompositions.results.DecompositionBlankets;
+import decolib.decompositions.results.InputSplit;
+import decolib.decompositions.results.LutNetwork;
+import decolib.decompositions.results.LutNode;
+import decolib.decompositions.results.OutputSplit;
+import decolib.decompositions.results.PrefilterCause;
+import decolib.decompositions.results.PrefilterResult;
 import org.fest.assertions.Assertions;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
 import static decolib.decompositions.DecompositionType.PARALLEL_Q;
 import static decolib.decompositions.DecompositionType.SERIAL_QGH;
 import static decolib.decompositions.results.FunctionsDependencyType.DEPENDS_ON_I_AND_Q;
@@ -109,4 +122,296 @@ public class DecompositionsTest
     Assertions.assertThat(decomposition.G.toString()).isEqualTo("Blanket{blocks=[B1+B4+B5:1,2,4,5,6,9; B2+B6+B3:3,4,5,7,8,10;]}");
     Assertions.assertThat(decomposition.H.toString()).isEqualTo("Blanket{blocks=[1,2; 3; 4; 5; 6; 7,8; 9; 10;]}");  // Just for a case.
   }
+
+  @Test
+  public void serialDecomposition_test3()
+  {
+    // The data of serialDecomposition_test1, computed with the context.
+    Blanket βIv = Blanket.create("1,2,4,5,7,9,10; 1,4,5,7,8,9,10; 2,4,5,6,9,10; 3,4,5,8,9,10;");
+    Blanket βQ = Blanket.create("S0:1,2,3; S1:4; S2:5; S3:6,7,8; S4:9; S5:10;");
+    Blanket βY = Blanket.create("1,2,6; 3,7,8; 4,9; 5,10;");
+
+    // The context without limits gives the same result, as the method without context.
+    int[] progress = new int[2];
+    DecompositionContext context = DecompositionContext.create().setProgressListener((done, total) -> { progress[0] = done; progress[1] = total; });
+    DecompositionBlankets decomposition = Decompositions.serialDecomposition(βIv, null, βQ, βY, 0, false, context);
+    Assertions.assertThat(decomposition.partial).isFalse();
+    Assertions.assertThat(decomposition.Qv.toString()).isEqualTo("Blanket{blocks=[S0+S1:1,2,3,4; S2:5; S3+S4:6,7,8,9; S5:10;]}");
+    Assertions.assertThat(decomposition.Qu.toString()).isEqualTo("Blanket{blocks=[S0+S3:1,2,3,6,7,8; S1+S4:4,9; S2+S5:5,10;]}");
+    Assertions.assertThat(decomposition.G.toString()).isEqualTo("Blanket{blocks=[B4+B5:1,2,4,6,9; B2+B6+B1+B3:3,4,5,7,8,9,10;]}");
+    Assertions.assertThat(progress[0]).isEqualTo(6);  // All blocks of blanket Q were processed.
+    Assertions.assertThat(progress[1]).isEqualTo(6);
+
+    // The cancelled computations give the partial, but still valid result.
+    context = DecompositionContext.create();
+    context.cancel();
+    decomposition = Decompositions.serialDecomposition(βIv, null, βQ, βY, 0, false, context);
+    Assertions.assertThat(decomposition.partial).isTrue();
+    Assertions.assertThat(context.isPartial()).isTrue();
+    Assertions.assertThat(decomposition.Iv.BxB(decomposition.Qv).BleB(decomposition.G)).isTrue();
+    Assertions.assertThat(decomposition.G.BxB(decomposition.Qu).BleB(decomposition.H)).isTrue();
+    Assertions.assertThat(decomposition.Qv.BxB(decomposition.Qu).BeqB(βQ)).isTrue();
+  }
+
+  @Test
+  public void serialDecomposition_test4()
+  {
+    // The data of serialDecomposition_test2, computed with the beam search.
+    Blanket βIv = Blanket.create("1,2,4,5,7,9,10; 1,4,5,7,8,9,10; 2,4,5,6,9,10; 3,4,5,8,9,10;");
+    Blanket βQ = Blanket.create("S0:1,2,3; S1:4; S2:5; S3:6,7,8; S4:9; S5:10;");
+    Blanket βY = Blanket.create("1,2; 3; 4; 5; 6; 7,8; 9; 10;");  // βy1y2y3
+
+    // The beam of width 1 is the greedy algorithm.
+    DecompositionBlankets greedy = Decompositions.serialDecomposition(βIv, null, βQ, βY, 0, false);
+    DecompositionBlankets decomposition = Decompositions.serialDecomposition(βIv, null, βQ, βY, 0, false, 1, DecompositionContext.create());
+    Assertions.assertThat(decomposition.toString()).isEqualTo(greedy.toString());
+
+    decomposition = Decompositions.serialDecomposition(βIv, null, βQ, βY, 0, false, 4, DecompositionContext.create());
+    Assertions.assertThat(decomposition.Iv.BxB(decomposition.Qv).BleB(decomposition.G)).isTrue();   // βIv x βQv <= βG - true
+    Assertions.assertThat(decomposition.G.BxB(decomposition.Qu).BleB(decomposition.H)).isTrue();    // βG x βQu <= βY  - true
+    Assertions.assertThat(decomposition.Qv.BxB(decomposition.Qu).BeqB(βQ)).isTrue();                // βQv x βQu = βQ  - true
+    Assertions.assertThat(decomposition.G.getBlocksCount()).isLessThanOrEqualTo(greedy.G.getBlocksCount());
+  }
+
+  @Test
+  public void serialDecomposition_test5()
+  {
+    // Blanket Q has few blocks, so the result is refined - blanket Qu has fewer blocks than found by the greedy algorithm (for the same blanket Qv).
+    Blanket βIv = Blanket.create("2,4; 8; 3,6; 1,5,7;");
+    Blanket βQ = Blanket.create("S0:1; S1:2,6,7,8; S2:3; S3:4,5;");
+    Blanket βY = Blanket.create("1,4; 2,5,6,7; 3,8;");
+
+    DecompositionBlankets greedy = Decompositions.serialDecomposition(βIv, null, βQ, βY, DecompositionOptions.create().withRefinement(false));
+    DecompositionBlankets decomposition = Decompositions.serialDecomposition(βIv, null, βQ, βY, 0, false);
+    Assertions.assertThat(decomposition.Iv.BxB(decomposition.Qv).BleB(decomposition.G)).isTrue();   // βIv x βQv <= βG - true
+    Assertions.assertThat(decomposition.G.BxB(decomposition.Qu).BleB(decomposition.H)).isTrue();    // βG x βQu <= βY  - true
+    Assertions.assertThat(decomposition.Qv.BxB(decomposition.Qu).BeqB(βQ)).isTrue();                // βQv x βQu = βQ  - true
+    Assertions.assertThat(decomposition.Qv.toString()).isEqualTo(greedy.Qv.toString());
+    Assertions.assertThat(decomposition.G.getBlocksCount()).isLessThanOrEqualTo(greedy.G.getBlocksCount());
+    Assertions.assertThat(greedy.Qu.toString()).isEqualTo("Blanket{blocks=[S0+S2:1,3; S1:2,6,7,8; S3:4,5;]}");
+    Assertions.assertThat(decomposition.Qu.toString()).isEqualTo("Blanket{blocks=[S0+S3:1,4,5; S1+S2:2,3,6,7,8;]}");  // The fewest blocks for blanket Qv.
+    Assertions.assertThat(decomposition.Qu.getBlocksCount()).isLessThan(greedy.Qu.getBlocksCount());
+
+    Assertions.assertThat(Decompositions.serialDecomposition(βIv, null, βQ, βY, DecompositionOptions.create()).toString()).isEqualTo(decomposition.toString());
+  }
+
+  @Test
+  public void decompositionBatch_test()
+  {
+    // Decompositions of serialDecomposition_test1, serialDecomposition_test2 and parallelDecomposition_test, sharing blankets Iv and Q.
+    Blanket βIv = Blanket.create("1,2,4,5,7,9,10; 1,4,5,7,8,9,10; 2,4,5,6,9,10; 3,4,5,8,9,10;");
+    Blanket βQ = Blanket.create("S0:1,2,3; S1:4; S2:5; S3:6,7,8; S4:9; S5:10;");
+    Blanket βY1 = Blanket.create("1,2,6; 3,7,8; 4,9; 5,10;");
+    Blanket βY2 = Blanket.create("1,2; 3; 4; 5; 6; 7,8; 9; 10;");
+    Blanket βG = Blanket.create("0:1,2,5,6,10; 1:3,4,7,8,9;");
+    Blanket βH = Blanket.create("0:1,2,4,6,9; 1:3,5,7,8,10;");
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    DecompositionBatch batch = DecompositionBatch.create(executor);
+    Assertions.assertThat(batch.addSerialDecomposition(βIv, null, βQ, βY1, 0, false)).isEqualTo(0);
+    Assertions.assertThat(batch.addSerialDecomposition(βIv, null, βQ, βY2, 0, false)).isEqualTo(1);
+    Assertions.assertThat(batch.addParallelDecomposition(βIv, βQ, βG, βH)).isEqualTo(2);
+
+    List<DecompositionBlankets> results = batch.run();
+    executor.shutdown();
+    Assertions.assertThat(results.get(0).toString()).isEqualTo(Decompositions.serialDecomposition(βIv, null, βQ, βY1, 0, false).toString());
+    Assertions.assertThat(results.get(1).toString()).isEqualTo(Decompositions.serialDecomposition(βIv, null, βQ, βY2, 0, false).toString());
+    Assertions.assertThat(results.get(2).toString()).isEqualTo(Decompositions.parallelDecomposition(βIv, βQ, βG, βH).toString());
+  }
+
+  @Test
+  public void decompositionOptions_test()
+  {
+    // The data of serialDecomposition_test2, decomposed for LUT cells of 4 and 5 inputs in one batch.
+    Blanket βIv = Blanket.create("1,2,4,5,7,9,10; 1,4,5,7,8,9,10; 2,4,5,6,9,10; 3,4,5,8,9,10;");
+    Blanket βQ = Blanket.create("S0:1,2,3; S1:4; S2:5; S3:6,7,8; S4:9; S5:10;");
+    Blanket βY = Blanket.create("1,2; 3; 4; 5; 6; 7,8; 9; 10;");  // βy1y2y3
+
+    DecompositionOptions options4 = DecompositionOptions.create().withParallelism(2).withCache(true);
+    DecompositionOptions options5 = options4.withLutInputs(5);
+    Assertions.assertThat(options4.getLutInputs()).isEqualTo(4);  // Options are immutable.
+    Assertions.assertThat(options5.getLutInputs()).isEqualTo(5);
+    Assertions.assertThat(options5.getParallelism()).isEqualTo(2);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    DecompositionBatch batch = DecompositionBatch.create(executor);
+    batch.addSerialDecomposition(βIv, null, βQ, βY, options4);
+    batch.addSerialDecomposition(βIv, null, βQ, βY, options5);
+    List<DecompositionBlankets> results = batch.run();
+    executor.shutdown();
+
+    // Results are the same as computed by methods without options (LUT cell of 4 inputs) and for the given number of inputs of LUT cell.
+    Assertions.assertThat(results.get(0).toString()).isEqualTo(Decompositions.serialDecomposition(βIv, null, βQ, βY, 0, false).toString());
+    Assertions.assertThat(Decompositions.serialDecomposition(βIv, null, βQ, βY, options4).toString()).isEqualTo(results.get(0).toString());
+    Assertions.assertThat(results.get(1).toString()).isEqualTo(Decompositions.serialDecomposition(βIv, null, βQ, βY, 0, false, 1, false, 5, DecompositionContext.create()).toString());
+
+    // The given context isn't changed by options, but its cancellation stops the decomposition (the partial result is marked in the context).
+    DecompositionContext context = DecompositionContext.create();
+    Assertions.assertThat(Decompositions.serialDecomposition(βIv, null, βQ, βY, options4, context).toString()).isEqualTo(results.get(0).toString());
+    Assertions.assertThat(context.getBlanketCache()).isNull();
+    context.cancel();
+    Assertions.assertThat(Decompositions.serialDecomposition(βIv, null, βQ, βY, options4.withTimeLimit(60000), context).partial).isTrue();
+    Assertions.assertThat(context.isPartial()).isTrue();
+  }
+
+  @Test
+  public void decompositionPrefilter_test()
+  {
+    // The data of serialDecomposition_test2 and the function, which isn't deterministic: terms 1 and 2 have the same values of inputs.
+    Blanket βIv = Blanket.create("1,2,4,5,7,9,10; 1,4,5,7,8,9,10; 2,4,5,6,9,10; 3,4,5,8,9,10;");
+    Blanket βQ = Blanket.create("S0:1,2,3; S1:4; S2:5; S3:6,7,8; S4:9; S5:10;");
+    Blanket βY = Blanket.create("1,2; 3; 4; 5; 6; 7,8; 9; 10;");  // βy1y2y3
+    Blanket βYx = Blanket.create("1,3,4,5,6,7,8,9,10; 2;");
+
+    PrefilterResult result = DecompositionPrefilter.checkSerialDecomposition(βIv, null, βQ, βY, 4);
+    Assertions.assertThat(result.passed).isTrue();
+    Assertions.assertThat(result.GInputsLowerBound).isEqualTo(2);
+    Assertions.assertThat(result.HInputsLowerBound).isEqualTo(1);
+    Assertions.assertThat(DecompositionPrefilter.checkSerialDecomposition(βIv, null, βQ, βY, 2).cause).isEqualTo(PrefilterCause.H_EXCEEDS_LUT);
+    Assertions.assertThat(DecompositionPrefilter.checkSerialDecomposition(βIv, null, βQ, βY, 1).cause).isEqualTo(PrefilterCause.G_EXCEEDS_LUT);
+
+    result = DecompositionPrefilter.checkSerialDecomposition(βIv, null, βQ, βYx, 4);
+    Assertions.assertThat(result.passed).isFalse();
+    Assertions.assertThat(result.cause).isEqualTo(PrefilterCause.NOT_DETERMINISTIC);
+    Assertions.assertThat(result.term).isEqualTo(1);
+    Assertions.assertThat(Decompositions.serialDecomposition(βIv, null, βQ, βYx, 0, false)).isNull();
+    Assertions.assertThat(DecompositionPrefilter.checkParallelDecomposition(βIv, βQ, βY, βYx).cause).isEqualTo(PrefilterCause.NOT_DETERMINISTIC);
+
+    // The request of the batch, which isn't deterministic, is rejected by the prefilter.
+    DecompositionBatch batch = DecompositionBatch.create();
+    batch.addSerialDecomposition(βIv, null, βQ, βY, 0, false);
+    batch.addSerialDecomposition(βIv, null, βQ, βYx, 0, false);
+    Assertions.assertThat(batch.getPrefilterResult(0)).isNull();
+    List<DecompositionBlankets> results = batch.run();
+    Assertions.assertThat(results.get(0)).isNotNull();
+    Assertions.assertThat(batch.getPrefilterResult(0).passed).isTrue();
+    Assertions.assertThat(results.get(1)).isNull();
+    Assertions.assertThat(batch.getPrefilterResult(1).cause).isEqualTo(PrefilterCause.NOT_DETERMINISTIC);
+  }
+
+  @Test
+  public void parallelDecompositionSplits_test()
+  {
+    // Outputs of parallelDecomposition_test: y2, y3 and y1 depending on Q only.
+    Blanket βI = Blanket.create("1,2,4,5,7,9,10; 1,4,5,7,8,9,10; 2,4,5,6,9,10; 3,4,5,8,9,10;");  // βx1x2
+    Blanket βQ = Blanket.create("S0:1,2,3; S1:4; S2:5; S3:6,7,8; S4:9; S5:10;");                 // βx3
+    Blanket βY1 = Blanket.create("0:1,2,3,4,5,6,7,8,10; 1:9;");  // βy1
+    Blanket βY2 = Blanket.create("0:1,2,5,6,10; 1:3,4,7,8,9;");  // βy2
+    Blanket βY3 = Blanket.create("0:1,2,4,6,9; 1:3,5,7,8,10;");  // βy3
+    List<OutputSplit> splits = Decompositions.parallelDecompositionSplits(βI, βQ, Arrays.asList(βY1, βY2, βY3), 3);
+    Assertions.assertThat(splits.size()).isEqualTo(3);
+
+    Assertions.assertThat(Arrays.toString(splits.get(0).GOutputs)).isEqualTo("[0]");
+    Assertions.assertThat(Arrays.toString(splits.get(0).HOutputs)).isEqualTo("[1, 2]");
+    Assertions.assertThat(splits.get(0).cost).isEqualTo(7);
+    Assertions.assertThat(Arrays.toString(splits.get(1).GOutputs)).isEqualTo("[1, 2]");
+    Assertions.assertThat(splits.get(1).cost).isEqualTo(7);
+    Assertions.assertThat(Arrays.toString(splits.get(2).GOutputs)).isEqualTo("[1]");
+    Assertions.assertThat(Arrays.toString(splits.get(2).HOutputs)).isEqualTo("[0, 2]");
+    Assertions.assertThat(splits.get(2).cost).isEqualTo(10);
+
+    // The decomposition of the split is the same as computed for its functions G and H.
+    for(OutputSplit split : splits)
+      Assertions.assertThat(split.decomposition.toString()).isEqualTo(Decompositions.parallelDecomposition(βI, βQ, split.decomposition.G, split.decomposition.H).toString());
+  }
+
+  @Test
+  public void serialDecompositionSplits_test()
+  {
+    // Function of Example_s8_deco_serial_Test, the split Iv = i1i2, Iu = i0 is chosen there by hand.
+    Blanket βI0 = Blanket.create("1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,16; 17,18,19,20;");
+    Blanket βI1 = Blanket.create("1,2,3,4,5,6,7,8,17,18,19,20; 9,10,11,12,13,14,15,16;");
+    Blanket βI2 = Blanket.create("1,2,3,4,9,10,11,12,17,18,19,20; 5,6,7,8,13,14,15,16;");
+    Blanket βQ = Blanket.create("S0:1,5,9,13,17; S3:4,8,12,16,20; S2:3,7,11,15,19; S1:2,6,10,14,18;");
+    Blanket βY = Blanket.create("1,2,8,19; 3,4,5,7,14; 6,9,11,15,16; 10,12,17,18; 13,20;");
+    List<InputSplit> splits = Decompositions.serialDecompositionSplits(Arrays.asList(βI0, βI1, βI2), βQ, βY, false, 8);
+    Assertions.assertThat(splits.size()).isEqualTo(7);  // The split without inputs of function G doesn't give the decomposition.
+
+    Assertions.assertThat(Arrays.toString(splits.get(0).IvInputs)).isEqualTo("[0]");
+    Assertions.assertThat(Arrays.toString(splits.get(0).IuInputs)).isEqualTo("[1, 2]");
+    Assertions.assertThat(splits.get(0).cost).isEqualTo(5);
+    Assertions.assertThat(splits.get(0).decomposition.G.getBlocksCount()).isEqualTo(2);
+
+    Assertions.assertThat(Arrays.toString(splits.get(5).IvInputs)).isEqualTo("[1, 2]");
+    Assertions.assertThat(Arrays.toString(splits.get(5).IuInputs)).isEqualTo("[0]");
+    Assertions.assertThat(splits.get(5).cost).isEqualTo(5);
+    Assertions.assertThat(splits.get(5).decomposition.G.toString()).isEqualTo("Blanket{blocks=[B4+B14+B13:1,2,8,17,18; B8+B6+B1+B15:3,5,10,12,19; B10+B5+B3+B16:4,7,9,14,20; B12+B11+B9+B7+B2:6,11,13,15,16;]}");
+
+    for(InputSplit split : splits)
+    {
+      DecompositionBlankets decomposition = split.decomposition;
+      Assertions.assertThat(decomposition.G.BxB(decomposition.Iu != null ? decomposition.Qu.BxB(decomposition.Iu) : decomposition.Qu).BleB(βY)).isTrue();  // βIu x βG x βQu <= βY - true
+    }
+
+    // Splits are decomposed with parameters of the serial decomposition given by options.
+    DecompositionOptions options = DecompositionOptions.create().withBeamWidth(4).withRefinement(false);
+    splits = Decompositions.serialDecompositionSplits(Arrays.asList(βI0, βI1, βI2), βQ, βY, 8, options);
+    for(InputSplit split : splits)
+    {
+      DecompositionBlankets decomposition = Decompositions.serialDecomposition(split.decomposition.Iv, split.decomposition.Iu, βQ, βY, options);
+      Assertions.assertThat(split.decomposition.toString()).isEqualTo(decomposition.toString());
+    }
+  }
+
+  @Test
+  public void decompositionAlternatives_test()
+  {
+    // Data of serialDecompositionSplits_test and parallelDecompositionSplits_test, the alternatives are ordered as the best splits.
+    Blanket βI0 = Blanket.create("1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,16; 17,18,19,20;");
+    Blanket βI1 = Blanket.create("1,2,3,4,5,6,7,8,17,18,19,20; 9,10,11,12,13,14,15,16;");
+    Blanket βI2 = Blanket.create("1,2,3,4,9,10,11,12,17,18,19,20; 5,6,7,8,13,14,15,16;");
+    Blanket βQ = Blanket.create("S0:1,5,9,13,17; S3:4,8,12,16,20; S2:3,7,11,15,19; S1:2,6,10,14,18;");
+    Blanket βY = Blanket.create("1,2,8,19; 3,4,5,7,14; 6,9,11,15,16; 10,12,17,18; 13,20;");
+    List<Blanket> inputs = Arrays.asList(βI0, βI1, βI2);
+
+    List<InputSplit> alternatives = Decompositions.serialDecompositionAlternatives(inputs, βQ, βY, false).limit(3).collect(Collectors.toList());
+    Assertions.assertThat(alternatives.toString()).isEqualTo(Decompositions.serialDecompositionSplits(inputs, βQ, βY, false, 3).toString());
+    alternatives = Decompositions.serialDecompositionAlternatives(inputs, βQ, βY, false).collect(Collectors.toList());
+    Assertions.assertThat(alternatives.toString()).isEqualTo(Decompositions.serialDecompositionSplits(inputs, βQ, βY, false, 8).toString());
+    DecompositionOptions options = DecompositionOptions.create().withLutInputs(3).withParallelism(2);
+    alternatives = Decompositions.serialDecompositionAlternatives(inputs, βQ, βY, options).collect(Collectors.toList());
+    Assertions.assertThat(alternatives.toString()).isEqualTo(Decompositions.serialDecompositionSplits(inputs, βQ, βY, 8, options).toString());
+
+    Blanket βI = Blanket.create("1,2,4,5,7,9,10; 1,4,5,7,8,9,10; 2,4,5,6,9,10; 3,4,5,8,9,10;");  // βx1x2
+    Blanket βQ3 = Blanket.create("S0:1,2,3; S1:4; S2:5; S3:6,7,8; S4:9; S5:10;");                // βx3
+    List<Blanket> outputs = Arrays.asList(Blanket.create("0:1,2,3,4,5,6,7,8,10; 1:9;"), Blanket.create("0:1,2,5,6,10; 1:3,4,7,8,9;"),
+                                          Blanket.create("0:1,2,4,6,9; 1:3,5,7,8,10;"));
+    Iterator<OutputSplit> iterator = Decompositions.parallelDecompositionAlternatives(βI, βQ3, outputs).iterator();
+    OutputSplit split = iterator.next();
+    Assertions.assertThat(Arrays.toString(split.GOutputs)).isEqualTo("[0]");
+    Assertions.assertThat(split.cost).isEqualTo(7);
+    Assertions.assertThat(Arrays.toString(iterator.next().GOutputs)).isEqualTo("[1, 2]");
+  }
+
+  @Test
+  public void multiLevelDecomposition_test()
+  {
+    // Function of Example_tms_deco_serial_Test (Y = {o7o8o9}), having 6 input bits: 2 bits of I = i2i7 and 4 bits of Q.
+    Blanket βI = Blanket.create("1,2,5,6,7,13,14,15,17,18,19,20,21,22,23,24,25,32,35,36; 1,4,5,6,7,8,14,15,17,18,19,20,21,22,23,24,25,32,33,34,35,36; 3,9,10,11,16,17,18,19,20,21,22,23,24,25,26,27,29,30,31,32,33,34,35,36; 9,10,11,12,16,17,18,19,20,21,22,23,24,25,27,28,29,30,31,32,35,36;");
+    Blanket βQ = Blanket.create("G00:2,4,22,27,34; G01:5,9,17,29; G02:1,24,35; G10:15,16,20; G11:6,10,18,30; G12:21,32,33,36; G20:8,12,13,25,26; G30:3,14,23,28; G31:7,11,19,31;");
+    Blanket βY = Blanket.create("1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,16,17,18,19,20,21,22,23,24,25; 1,9,10,11,17,18,19,20,21,22,23,24,25,29,30,31,35,36; 4,17,18,19,20,21,22,23,24,25,33,34; 17,18,19,20,21,22,23,24,25,26,27,28,29,30,31,32,33,34,35,36;");
+    LutNetwork network = Decompositions.multiLevelDecomposition(Arrays.asList(βI), βQ, Arrays.asList(βY));
+
+    Assertions.assertThat(network.partial).isFalse();
+    Assertions.assertThat(network.getNodesCount()).isEqualTo(2);
+    Assertions.assertThat(network.getLutsCount()).isEqualTo(4);
+    Assertions.assertThat(network.getOversizedNodesCount()).isEqualTo(0);
+    Assertions.assertThat(network.getDepth()).isEqualTo(2);
+
+    // Node of function G precedes node of function H, which computes the output.
+    LutNode nodeG = network.nodes.get(0);
+    LutNode nodeH = network.nodes.get(1);
+    Assertions.assertThat(network.outputNodes.size()).isEqualTo(1);
+    Assertions.assertThat(network.outputNodes.get(0)).isEqualTo(nodeH);
+    Assertions.assertThat(nodeH.predecessors.size()).isEqualTo(1);
+    Assertions.assertThat(nodeH.predecessors.get(0)).isEqualTo(nodeG);
+    Assertions.assertThat(nodeH.inputs.get(0).BeqB(nodeG.Y)).isTrue();
+    Assertions.assertThat(nodeH.Y.BeqB(βY)).isTrue();
+
+    for(LutNode node : network.nodes)
+    {
+      Assertions.assertThat(node.inputBits).isEqualTo(DecompositionOptions.create().getLutInputs());
+      Assertions.assertThat(node.Q.BxB(node.inputs.get(0)).BleB(node.Y)).isTrue();  // βQ x βI <= βY - true (the function of the node is deterministic)
+    }
+  }
 }
@@ -0,0 +1,179 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions;
+
+import decolib.blankets.Blanket;
+import decolib.decompositions.results.DecompositionBlankets;
+import decolib.decompositions.results.InputSplit;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Finds splits of binary inputs into inputs of functions G (blanket Iv) and H (blanket Iu), for which the serial decomposition gives
+ * function H having the fewest binary inputs: inputs of Iu and bits encoding blankets G and Qu. Each split is given by the mask of inputs
+ * of function G, and function G may have at most lutInputs - 1 binary inputs (at least one input of the LUT cell is left for blanket Qv).
+ * The lower bound of the cost, used to skip splits (see SplitSearch), follows from the relation Iu x Qu x G &lt;= Y: the blanket Qu x G
+ * has at least as many blocks, as terms of a block of Iu pairwise not included in any common block of Y.
+ */
+final class InputSplitSearch
+{
+  static final int MAX_INPUTS = 16;
+
+  private final List<Blanket> inputs;
+  private final int[] inputBits;  // inputBits[i] = number of bits encoding blocks of input i.
+  private final Blanket Q;
+  private final Blanket Y;
+  private final DecompositionOptions options;
+  private final int lutInputs;
+  private final DecompositionContext context;
+
+  /**
+   * @param inputs blankets of binary inputs (from 1 to MAX_INPUTS blankets)
+   * @param Q blanket for input that being the object for encoding through decomposition
+   * @param Y blanket for output function Y
+   * @param options options of serial decompositions of splits (the number of inputs of LUT cell and parameters of the serial decomposition are used)
+   * @param context context of computations, which isn't changed (decompositions of splits share the cache in the context created for them)
+   */
+  InputSplitSearch(List<Blanket> inputs, Blanket Q, Blanket Y, DecompositionOptions options, DecompositionContext context)
+  {
+    if(inputs.isEmpty() || inputs.size() > MAX_INPUTS)
+      throw new IllegalArgumentException(String.format("Number of inputs should be between 1 and %s, given %s", MAX_INPUTS, inputs.size()));
+
+    this.inputs = new ArrayList<>(inputs);
+    this.inputBits = inputs.stream().mapToInt(input -> DecompositionsTools.encodingBitsCount(input.getBlocksCount())).toArray();
+    this.Q = Q;
+    this.Y = Y;
+    this.options = options;
+    this.lutInputs = options.getLutInputs();
+    this.context = DecompositionContext.createChildWithCache(context);
+  }
+
+  /**
+   * @param resultsNum maximal number of returned results
+   * @return the best splits, ordered by the cost, numbers of blocks of blankets G and Qu, and then by masks of inputs of function G
+   */
+  List<InputSplit> search(int resultsNum)
+  {
+    return createSearch().search(resultsNum);
+  }
+
+  /**
+   * @return iterator over all splits, in the order of "search(resultsNum)", which decomposes splits lazily (see SplitSearch.iterator)
+   */
+  Iterator<InputSplit> iterator()
+  {
+    return createSearch().iterator();
+  }
+
+  private SplitSearch<InputSplit> createSearch()
+  {
+    int full = (1 << inputs.size()) - 1;
+    int[] masks = IntStream.rangeClosed(0, full).filter(mask -> bits(mask) < lutInputs).toArray();
+    Blanket IxQ = product(full).BxB(Q, false);
+
+    return new SplitSearch<>(masks.length, split -> lowerBound(masks[split], full ^ masks[split], IxQ),
+      split -> decompose(masks[split], full ^ masks[split]),
+      split -> split.cost,
+      Comparator.<InputSplit>comparingInt(split -> split.cost)
+        .thenComparingInt(split -> split.decomposition.G.getBlocksCount())
+        .thenComparingInt(split -> split.decomposition.Qu.getBlocksCount())
+        .thenComparingInt(split -> mask(split.IvInputs)),
+      context);
+  }
+
+  // Method returns the number of bits encoding inputs given by the mask.
+  private int bits(int mask)
+  {
+    int bits = 0;
+    for(int i = 0; i < inputs.size(); i++)
+      if((mask & (1 << i)) != 0) bits += inputBits[i];
+
+    return bits;
+  }
+
+  // Method computes the product of input blankets given by the mask (null for the empty mask).
+  private Blanket product(int mask)
+  {
+    Blanket I = null;
+    for(int i = 0; i < inputs.size(); i++)
+      if((mask & (1 << i)) != 0) I = I == null ? inputs.get(i) : I.BxB(inputs.get(i));
+
+    return I;
+  }
+
+  private static int mask(int[] inputs)
+  {
+    int mask = 0;
+    for(int i : inputs) mask |= 1 << i;
+    return mask;
+  }
+
+  private static int[] inputs(int mask)
+  {
+    return IntStream.range(0, Integer.SIZE).filter(i -> (mask & (1 << i)) != 0).toArray();
+  }
+
+  /**
+   * Method returns the lower bound of the number of binary inputs of function H for the split. Blocks of Qu x G, encoded by inputs of H
+   * other than Iu, can't be fewer than terms of a block of Iu pairwise not included in any common block of Y (and both G and Qu need
+   * at least one bit).
+   *
+   * @param IvMask mask of inputs of function G
+   * @param IuMask mask of inputs of function H
+   * @param IxQ product of all inputs and blanket Q
+   * @return lower bound of the cost, or -1 when the decomposition doesn't exist for the split
+   */
+  private int lowerBound(int IvMask, int IuMask, Blanket IxQ)
+  {
+    // The serial decomposition without inputs of function G requires Q <= Y, otherwise it requires (Iv x Iu x Q) <= Y.
+    if(!(IvMask != 0 ? IxQ.BleB(Y) : Q.BleB(Y))) return -1;
+
+    int QuGBits = DecompositionsTools.encodingBitsCount(SplitSearch.getDistinguishedTermsCount(product(IuMask), Y));
+    return bits(IuMask) + Math.max(QuGBits, 2);
+  }
+
+  /**
+   * Method decomposes the function for the split given by masks of inputs.
+   *
+   * @param IvMask mask of inputs of function G
+   * @param IuMask mask of inputs of function H
+   * @return split with the decomposition, or null if the decomposition wasn't found
+   */
+  private InputSplit decompose(int IvMask, int IuMask)
+  {
+    DecompositionBlankets decomposition = Decompositions.serialDecomposition(product(IvMask), product(IuMask), Q, Y, options.getQvExpectedBlocksNum(),
+                                                                             options.isFindMinimalG(), options.getBeamWidth(), options.isRefinement(), lutInputs, context);
+    if(decomposition == null) return null;
+
+    InputSplit split = InputSplit.create();
+    split.IvInputs = inputs(IvMask);
+    split.IuInputs = inputs(IuMask);
+    split.cost = bits(IuMask) + DecompositionsTools.encodingBitsCount(decomposition.G.getBlocksCount())
+                              + DecompositionsTools.encodingBitsCount(decomposition.Qu.getBlocksCount());
+    split.decomposition = decomposition;
+    return split;
+  }
+}
@@ -0,0 +1,87 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions.results;
+
+import java.util.List;
+
+/**
+ * A container for the network of LUT cells, computed by the multi-level decomposition.
+ */
+public class LutNetwork
+{
+  public boolean partial;                       // Value "true" means that computations were stopped and some nodes weren't decomposed.
+  public List<LutNode> nodes;                   // All nodes, ordered by levels (predecessors of the node precede it).
+  public List<LutNode> outputNodes;             // Nodes computing output functions.
+
+  private LutNetwork()
+  {
+  }
+
+  public static LutNetwork create()
+  {
+    return new LutNetwork();
+  }
+
+  /**
+   * @return number of nodes
+   */
+  public int getNodesCount()
+  {
+    return nodes.size();
+  }
+
+  /**
+   * @return number of LUT cells of all nodes
+   */
+  public int getLutsCount()
+  {
+    return nodes.stream().mapToInt(node -> node.outputBits).sum();
+  }
+
+  /**
+   * @return number of nodes, which don't fit LUT cells
+   */
+  public int getOversizedNodesCount()
+  {
+    return (int)nodes.stream().filter(node -> !node.fits).count();
+  }
+
+  /**
+   * @return number of levels of LUT cells
+   */
+  public int getDepth()
+  {
+    return nodes.stream().mapToInt(node -> node.level).max().orElse(0);
+  }
+
+  @Override
+  public String toString()
+  {
+    return "LutNetwork{" +
+      "partial=" + partial +
+      ", nodes=" + getNodesCount() +
+      ", luts=" + getLutsCount() +
+      ", oversizedNodes=" + getOversizedNodesCount() +
+      ", depth=" + getDepth() +
+      '}';
+  }
+}
@@ -0,0 +1,316 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions;
+
+import decolib.blankets.Blanket;
+import decolib.decompositions.results.DecompositionBlankets;
+import decolib.decompositions.results.InputSplit;
+import decolib.decompositions.results.LutNetwork;
+import decolib.decompositions.results.LutNode;
+import decolib.decompositions.results.OutputSplit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Builds the network of LUT cells by the multi-level decomposition. The function having many outputs is split by the parallel
+ * decomposition (see Decompositions.parallelDecompositionSplits) into functions G and H, decomposed independently. The function
+ * having too many input bits is decomposed by the serial decomposition (see Decompositions.serialDecompositionSplits) into function
+ * G(Iv, Qv) and function H(Iu, Qu, G), which are decomposed independently too (H uses the blanket G only, not the network of G).
+ * Functions are decomposed as tasks of the work-stealing pool, until they fit LUT cells, or the decomposition doesn't decrease
+ * the number of input bits.
+ */
+final class LutNetworkBuilder
+{
+  // The input of the function: the blanket and the node computing it (the node is set, when the task of this node finishes).
+  private static final class Input
+  {
+    final Blanket blanket;
+    final Source source;
+
+    Input(Blanket blanket, Source source)
+    {
+      this.blanket = blanket;
+      this.source = source;
+    }
+  }
+
+  // Holder of the node computing the function, null for primary inputs.
+  private static final class Source
+  {
+    volatile LutNode node;
+  }
+
+  // The node with data used for building the network.
+  private static final class NodeEntry
+  {
+    final LutNode node;
+    final List<Source> sources;
+    final String path;  // Path of the task in the tree of decompositions, used for the deterministic order of nodes.
+
+    NodeEntry(LutNode node, List<Source> sources, String path)
+    {
+      this.node = node;
+      this.sources = sources;
+      this.path = path;
+    }
+  }
+
+  private final DecompositionOptions options;
+  private final int lutInputs;
+  private final DecompositionContext context;
+  private final Queue<NodeEntry> entries = new ConcurrentLinkedQueue<>();
+
+  /**
+   * @param options options of decompositions (the number of inputs of LUT cell and parameters of serial decompositions are used)
+   * @param context context of computations, which isn't changed (all decompositions share the cache in the context created for them)
+   */
+  LutNetworkBuilder(DecompositionOptions options, DecompositionContext context)
+  {
+    this.options = options;
+    this.lutInputs = options.getLutInputs();
+    this.context = DecompositionContext.createChildWithCache(context);
+  }
+
+  /**
+   * @param inputs blankets of binary inputs
+   * @param Q blanket for multiple-valued input (may be null)
+   * @param outputs blankets of output functions
+   * @return network of LUT cells
+   */
+  LutNetwork build(List<Blanket> inputs, Blanket Q, List<Blanket> outputs)
+  {
+    List<Input> primaryInputs = inputs.stream().map(input -> new Input(input, null)).collect(Collectors.toList());
+    FunctionTask task = new FunctionTask(primaryInputs, Q != null ? new Input(Q, null) : null, new ArrayList<>(outputs),
+                                         IntStream.range(0, outputs.size()).toArray(), null, "");
+    // Tasks are run in the current pool (e.g. the pool of given parallelism, see DecompositionOptions) or in the common pool.
+    if(ForkJoinTask.inForkJoinPool()) task.invoke();
+    else ForkJoinPool.commonPool().invoke(task);
+
+    // Predecessors of nodes are known, when all tasks are finished.
+    for(NodeEntry entry : entries)
+      entry.node.predecessors = entry.sources.stream().map(source -> source.node).distinct().collect(Collectors.toList());
+
+    for(NodeEntry entry : entries) computeLevel(entry.node);
+
+    LutNetwork network = LutNetwork.create();
+    network.partial = context.isPartial();
+    network.nodes = entries.stream()
+      .sorted(Comparator.<NodeEntry>comparingInt(entry -> entry.node.level).thenComparing(entry -> entry.path))
+      .map(entry -> entry.node)
+      .collect(Collectors.toList());
+    network.outputNodes = network.nodes.stream()
+      .filter(node -> node.outputs.length > 0)
+      .sorted(Comparator.comparingInt(node -> node.outputs[0]))
+      .collect(Collectors.toList());
+
+    return network;
+  }
+
+  // Method computes the level of the node (the network is acyclic, as the node uses functions computed before its task was created).
+  private static int computeLevel(LutNode node)
+  {
+    if(node.level == 0)
+    {
+      int level = 0;
+      for(LutNode predecessor : node.predecessors) level = Math.max(level, computeLevel(predecessor));
+      node.level = level + 1;
+    }
+
+    return node.level;
+  }
+
+  // Method returns the number of bits encoding the blanket (0 for the blanket of one block).
+  private static int getBits(Blanket blanket)
+  {
+    return blanket != null && blanket.getBlocksCount() > 1 ? DecompositionsTools.encodingBitsCount(blanket.getBlocksCount()) : 0;
+  }
+
+  private static int getBits(List<Input> inputs, Input Q)
+  {
+    return inputs.stream().mapToInt(input -> getBits(input.blanket)).sum() + (Q != null ? getBits(Q.blanket) : 0);
+  }
+
+  private static Blanket product(List<Blanket> blankets)
+  {
+    Blanket product = blankets.get(0);
+    for(int i = 1; i < blankets.size(); i++) product = product.BxB(blankets.get(i));
+    return product;
+  }
+
+  // Task decomposing the function of the given inputs.
+  private final class FunctionTask extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+
+    private final List<Input> inputs;
+    private final Input Q;
+    private final List<Blanket> outputs;   // Output functions, the function of the task is their product.
+    private final int[] outputPositions;   // Positions of output functions of the network (empty for the function G of serial decomposition).
+    private final Source target;           // Holder of the node computing the function (may be null).
+    private final String path;
+
+    FunctionTask(List<Input> inputs, Input Q, List<Blanket> outputs, int[] outputPositions, Source target, String path)
+    {
+      // When the multiple-valued input is not given (or it is constant), the binary input having the most blocks is used instead.
+      if((Q == null || Q.blanket.getBlocksCount() < 2) && !inputs.isEmpty())
+      {
+        inputs = new ArrayList<>(inputs);
+        Input input = Collections.max(inputs, Comparator.comparingInt(in -> in.blanket.getBlocksCount()));
+        inputs.remove(input);
+        Q = input;
+      }
+
+      this.inputs = inputs;
+      this.Q = Q;
+      this.outputs = outputs;
+      this.outputPositions = outputPositions;
+      this.target = target;
+      this.path = path;
+    }
+
+    @Override
+    protected void compute()
+    {
+      int bits = getBits(inputs, Q);
+      if(bits <= lutInputs || Q == null || context.isStopped())
+      {
+        createNode(bits);
+        return;
+      }
+
+      if(outputs.size() > 1 && splitOutputs()) return;
+      if(!decomposeSerially(bits)) createNode(bits);
+    }
+
+    // Method splits outputs of the function by the parallel decomposition, and decomposes both parts.
+    private boolean splitOutputs()
+    {
+      int[] GPositions, HPositions;
+      List<Input> GInputs = inputs, HInputs = inputs;
+      Input GQ = Q, HQ = Q;
+
+      if(outputs.size() > OutputSplitSearch.MAX_OUTPUTS)
+      {
+        // Too many outputs to search splits, thus they are split into halves (both halves use all inputs).
+        GPositions = IntStream.range(0, outputs.size() / 2).toArray();
+        HPositions = IntStream.range(outputs.size() / 2, outputs.size()).toArray();
+      }
+      else
+      {
+        Blanket I = inputs.isEmpty() ? null : product(inputs.stream().map(input -> input.blanket).collect(Collectors.toList()));
+        List<OutputSplit> splits = Decompositions.parallelDecompositionSplits(I, Q.blanket, outputs, 1, context);
+        if(splits.isEmpty()) return false;
+
+        DecompositionBlankets decomposition = splits.get(0).decomposition;
+        GPositions = splits.get(0).GOutputs;
+        HPositions = splits.get(0).HOutputs;
+
+        // Functions G and H use the inputs, which fulfil the relation I x Qv <= G (or I x Qu <= H).
+        if(I != null && I.BleB(decomposition.G)) GQ = null;
+        else if(decomposition.Qv != null && (decomposition.Qv.BleB(decomposition.G) || (I != null && I.BxB(decomposition.Qv).BleB(decomposition.G))))
+        {
+          if(decomposition.Qv.BleB(decomposition.G)) GInputs = Collections.emptyList();
+          GQ = new Input(decomposition.Qv, Q.source);
+        }
+
+        if(I != null && I.BleB(decomposition.H)) HQ = null;
+        else if(decomposition.Qu != null && (decomposition.Qu.BleB(decomposition.H) || (I != null && I.BxB(decomposition.Qu).BleB(decomposition.H))))
+        {
+          if(decomposition.Qu.BleB(decomposition.H)) HInputs = Collections.emptyList();
+          HQ = new Input(decomposition.Qu, Q.source);
+        }
+      }
+
+      invokeAll(new FunctionTask(GInputs, GQ, select(outputs, GPositions), select(outputPositions, GPositions), null, path + "0"),
+                new FunctionTask(HInputs, HQ, select(outputs, HPositions), select(outputPositions, HPositions), null, path + "1"));
+      return true;
+    }
+
+    // Method decomposes the function by the serial decomposition, and decomposes functions G and H, if they have fewer input bits.
+    private boolean decomposeSerially(int bits)
+    {
+      if(inputs.isEmpty() || inputs.size() > InputSplitSearch.MAX_INPUTS) return false;
+
+      Blanket Y = product(outputs);
+      List<InputSplit> splits = new InputSplitSearch(inputs.stream().map(input -> input.blanket).collect(Collectors.toList()),
+                                                     Q.blanket, Y, options, context).search(1);
+      if(splits.isEmpty()) return false;
+
+      DecompositionBlankets decomposition = splits.get(0).decomposition;
+      List<Input> GInputs = Arrays.stream(splits.get(0).IvInputs).mapToObj(inputs::get).collect(Collectors.toList());
+      Input GQ = new Input(decomposition.Qv, Q.source);
+
+      Source GSource = new Source();
+      List<Input> HInputs = Arrays.stream(splits.get(0).IuInputs).mapToObj(inputs::get).collect(Collectors.toList());
+      HInputs.add(new Input(decomposition.G, GSource));
+      Input HQ = new Input(decomposition.Qu, Q.source);
+
+      if(getBits(GInputs, GQ) >= bits || getBits(HInputs, HQ) >= bits) return false;
+
+      invokeAll(new FunctionTask(GInputs, GQ, Collections.singletonList(decomposition.G), new int[0], GSource, path + "0"),
+                new FunctionTask(HInputs, HQ, outputs, outputPositions, target, path + "1"));
+      return true;
+    }
+
+    private void createNode(int bits)
+    {
+      if(context.isStopped()) context.markPartial();
+
+      LutNode node = LutNode.create();
+      node.Y = product(outputs);
+      node.inputs = inputs.stream().map(input -> input.blanket).collect(Collectors.toList());
+      node.Q = Q != null ? Q.blanket : null;
+      node.outputs = outputPositions;
+      node.inputBits = bits;
+      node.outputBits = getBits(node.Y);
+      node.fits = bits <= lutInputs;
+
+      List<Source> sources = new ArrayList<>();
+      for(Input input : inputs) if(input.source != null) sources.add(input.source);
+      if(Q != null && Q.source != null) sources.add(Q.source);
+
+      entries.add(new NodeEntry(node, sources, path));
+      if(target != null) target.node = node;
+    }
+  }
+
+  private static <T> List<T> select(List<T> list, int[] positions)
+  {
+    return Arrays.stream(positions).mapToObj(list::get).collect(Collectors.toList());
+  }
+
+  private static int[] select(int[] array, int[] positions)
+  {
+    return Arrays.stream(positions).map(position -> array[position]).toArray();
+  }
+}
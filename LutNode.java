@@ -0,0 +1,69 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions.results;
+
+import decolib.blankets.Blanket;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A node of the network of LUT cells: the function of binary inputs and (optionally) the multiple-valued input Q. The node
+ * fits LUT cells, when the number of its input bits isn't greater than the number of inputs of LUT cell - then each bit encoding
+ * the blanket of the function is computed by one LUT cell.
+ */
+public class LutNode
+{
+  public Blanket Y;                             // The blanket of the function of the node.
+  public List<Blanket> inputs;                  // The blankets of binary inputs (primary inputs or functions of other nodes).
+  public Blanket Q;                             // The blanket for multiple-valued input, may be null.
+  public List<LutNode> predecessors;            // Nodes computing the inputs of this node (the empty list for primary inputs only).
+  public int[] outputs;                         // Positions of output functions computed by the node (empty for the internal node).
+  public int inputBits;                         // Number of bits encoding the inputs (and the blanket Q).
+  public int outputBits;                        // Number of bits encoding the blanket Y, i.e. the number of LUT cells of the node.
+  public int level;                             // The length of the longest path from primary inputs (1 for nodes of primary inputs only).
+  public boolean fits;                          // Value "true" means that the node fits LUT cells, otherwise it wasn't decomposed further.
+
+  private LutNode()
+  {
+  }
+
+  public static LutNode create()
+  {
+    return new LutNode();
+  }
+
+  @Override
+  public String toString()
+  {
+    return "LutNode{" +
+      "Y=" + Y +
+      ", inputs=" + inputs +
+      ", Q=" + Q +
+      ", outputs=" + Arrays.toString(outputs) +
+      ", inputBits=" + inputBits +
+      ", outputBits=" + outputBits +
+      ", level=" + level +
+      ", fits=" + fits +
+      '}';
+  }
+}
@@ -0,0 +1,276 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions;
+
+import decolib.blankets.Block;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Finds the fewest groups of blocks of blanket B, such that the sum of blocks of each group (a block of blanket Q) fulfils
+ * the relation (A x Q &lt;= F). The search is the branch and bound over the compatibility graph of blocks of B, in which
+ * the block having the fewest groups it can join is assigned first (as in DSATUR coloring). The size of a clique of pairwise
+ * incompatible blocks is the lower bound of the number of groups. Subtrees of the search are explored in parallel, until
+ * the context stops computations - then the context is marked as having the partial result.
+ */
+final class MinimalBlanketSolver
+{
+  private final int blocksCnt;
+  private final int aBlocksCnt;
+  private final CompatibilityGraph graph;
+  private final int[] degrees;        // degrees[i] = number of blocks of B incompatible with block i.
+  private final DecompositionContext context;
+  private final int lowerBound;
+  private volatile boolean stopped = false;
+
+  // The best solution: the number of groups and the position of the subtree in which it was found (the earlier subtree wins a tie,
+  // thus the result does not depend on timing of threads). The position -1 stands for the initial solution.
+  private int bestCnt;
+  private int bestSubtree = -1;
+  private int[] bestGroups = null;
+
+  /**
+   * @param aBlocks blocks of blanket A, the single null means the block of all terms
+   * @param bBlocks blocks of blanket B
+   * @param fBlocks blocks of blanket F
+   * @param initialCnt number of groups of the known solution, only better solutions are searched
+   * @param context context of computations (may be null)
+   */
+  MinimalBlanketSolver(List<Block> aBlocks, List<Block> bBlocks, List<Block> fBlocks, int initialCnt, DecompositionContext context)
+  {
+    blocksCnt = bBlocks.size();
+    aBlocksCnt = aBlocks.size();
+    graph = new CompatibilityGraph(aBlocks, bBlocks, fBlocks, null);
+    this.context = context;
+    bestCnt = initialCnt;
+
+    degrees = new int[blocksCnt];
+    for(int i = 0; i < blocksCnt; i++)
+      for(int j = 0; j < blocksCnt; j++)
+        if(!isCompatible(i, j)) degrees[i]++;
+
+    lowerBound = findClique();
+  }
+
+  private boolean isCompatible(int i, int j)
+  {
+    return (graph.rows[i][j >>> 6] & (1L << j)) != 0;
+  }
+
+  // Method greedily finds a clique of pairwise incompatible blocks, starting from blocks of the highest degree, and returns its size.
+  private int findClique()
+  {
+    Integer[] order = new Integer[blocksCnt];
+    for(int i = 0; i < blocksCnt; i++) order[i] = i;
+    Arrays.sort(order, (i, j) -> degrees[j] - degrees[i]);
+
+    List<Integer> clique = new ArrayList<>();
+    nextBlock: for(int i : order)
+    {
+      for(int j : clique)
+        if(isCompatible(i, j)) continue nextBlock;
+      clique.add(i);
+    }
+
+    return clique.size();
+  }
+
+  /**
+   * Method searches for a solution having fewer groups than the initial one.
+   *
+   * @return group numbers of blocks of B (from 0), or null if no better solution was found (or some block of B doesn't fulfil the relation itself)
+   */
+  int[] solve()
+  {
+    for(int i = 0; i < blocksCnt; i++)
+      if(!isCompatible(i, i)) return null;
+
+    if(lowerBound >= bestCnt) return null;
+
+    // Subtrees of the search are collected by expanding nodes level by level, next they are explored in parallel.
+    List<State> subtrees = new ArrayList<>();
+    subtrees.add(new State());
+    int minSubtrees = 8 * Runtime.getRuntime().availableProcessors();
+    while(subtrees.size() < minSubtrees)
+    {
+      List<State> next = new ArrayList<>();
+      boolean expanded = false;
+      for(State state : subtrees)
+      {
+        if(state.assigned == blocksCnt) next.add(state);
+        else
+        {
+          next.addAll(state.children(0));
+          expanded = true;
+        }
+      }
+
+      subtrees = next;
+      if(!expanded) break;
+    }
+
+    List<State> roots = subtrees;
+    IntStream.range(0, roots.size()).parallel().forEach(i -> search(roots.get(i), i));
+
+    synchronized(this)
+    {
+      return bestGroups;
+    }
+  }
+
+  // Method checks whether a solution of the given lower bound, found in the given subtree, might replace the best solution.
+  private synchronized boolean mayImprove(int bound, int subtree)
+  {
+    return bound < bestCnt || (bound == bestCnt && subtree < bestSubtree);
+  }
+
+  private synchronized void improve(State state, int subtree)
+  {
+    if(mayImprove(state.groupsCnt, subtree))
+    {
+      bestCnt = state.groupsCnt;
+      bestSubtree = subtree;
+      bestGroups = state.groups.clone();
+    }
+  }
+
+  // Method explores the subtree of the search in the depth-first order.
+  private void search(State state, int subtree)
+  {
+    if(stopped) return;
+    if(DecompositionsHelpers.isStopped(context))
+    {
+      stopped = true;
+      context.markPartial();
+      return;
+    }
+
+    if(state.assigned == blocksCnt)
+    {
+      improve(state, subtree);
+      return;
+    }
+
+    if(!mayImprove(Math.max(state.groupsCnt, lowerBound), subtree)) return;
+
+    for(State child : state.children(subtree))
+      search(child, subtree);
+  }
+
+  /**
+   * Node of the search: the blocks of B assigned to groups so far.
+   */
+  private final class State
+  {
+    final int[] groups;          // groups[i] = group of block i of B, or -1.
+    final long[][][] coverage;   // coverage[g][a] = bits of blocks of F, which include the common part of block a of A and the sum of blocks of group g.
+    final long[][] compatible;   // compatible[g] = bits of blocks of B, which are compatible with all blocks of group g.
+    int groupsCnt = 0;
+    int assigned = 0;
+
+    State()
+    {
+      groups = new int[blocksCnt];
+      Arrays.fill(groups, -1);
+      coverage = new long[blocksCnt][][];
+      compatible = new long[blocksCnt][];
+    }
+
+    State(State other)
+    {
+      groups = other.groups.clone();
+      coverage = other.coverage.clone();
+      compatible = other.compatible.clone();
+      groupsCnt = other.groupsCnt;
+      assigned = other.assigned;
+    }
+
+    boolean canJoin(int i, int g)
+    {
+      if((compatible[g][i >>> 6] & (1L << i)) == 0) return false;
+      for(int a = 0; a < aBlocksCnt; a++)
+        if(!CompatibilityGraph.intersects(coverage[g][a], graph.covers[i][a])) return false;
+      return true;
+    }
+
+    // Method chooses the not assigned block, which can join the fewest groups (ties are resolved by the degree), and returns
+    // states with this block assigned to each group it can join, or to a new group. A new group is skipped, if it can't
+    // improve the best solution.
+    List<State> children(int subtree)
+    {
+      int block = -1;
+      int blockJoins = Integer.MAX_VALUE;
+      for(int i = 0; i < blocksCnt; i++)
+      {
+        if(groups[i] < 0)
+        {
+          int joins = 0;
+          for(int g = 0; g < groupsCnt; g++)
+            if(canJoin(i, g)) joins++;
+
+          if(joins < blockJoins || (joins == blockJoins && degrees[i] > degrees[block]))
+          {
+            block = i;
+            blockJoins = joins;
+          }
+        }
+      }
+
+      List<State> result = new ArrayList<>();
+      for(int g = 0; g < groupsCnt; g++)
+      {
+        if(canJoin(block, g))
+        {
+          State child = new State(this);
+          child.groups[block] = g;
+          child.assigned++;
+          child.coverage[g] = new long[aBlocksCnt][];
+          for(int a = 0; a < aBlocksCnt; a++)
+          {
+            child.coverage[g][a] = coverage[g][a].clone();
+            for(int w = 0; w < child.coverage[g][a].length; w++) child.coverage[g][a][w] &= graph.covers[block][a][w];
+          }
+
+          child.compatible[g] = compatible[g].clone();
+          for(int w = 0; w < child.compatible[g].length; w++) child.compatible[g][w] &= graph.rows[block][w];
+          result.add(child);
+        }
+      }
+
+      if(mayImprove(Math.max(groupsCnt + 1, lowerBound), subtree))
+      {
+        State child = new State(this);
+        child.groups[block] = groupsCnt;
+        child.assigned++;
+        child.coverage[groupsCnt] = graph.covers[block];
+        child.compatible[groupsCnt] = graph.rows[block];
+        child.groupsCnt++;
+        result.add(child);
+      }
+
+      return result;
+    }
+  }
+}
@@ -0,0 +1,55 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions.results;
+
+import java.util.Arrays;
+
+/**
+ * A container for the split of output functions into functions G and H, together with the parallel decomposition found for this split.
+ */
+public class OutputSplit
+{
+  public int[] GOutputs;                        // Positions of output blankets, which product is the blanket G.
+  public int[] HOutputs;                        // Positions of output blankets, which product is the blanket H.
+  public int cost;                              // Sum of numbers of blocks of blankets Qv and Qu (0 for blanket not computed).
+  public DecompositionBlankets decomposition;
+
+  private OutputSplit()
+  {
+  }
+
+  public static OutputSplit create()
+  {
+    return new OutputSplit();
+  }
+
+  @Override
+  public String toString()
+  {
+    return "OutputSplit{" +
+      "GOutputs=" + Arrays.toString(GOutputs) +
+      ", HOutputs=" + Arrays.toString(HOutputs) +
+      ", cost=" + cost +
+      ", decomposition=" + decomposition +
+      '}';
+  }
+}
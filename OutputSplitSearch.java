@@ -0,0 +1,175 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions;
+
+import decolib.blankets.Blanket;
+import decolib.decompositions.results.DecompositionBlankets;
+import decolib.decompositions.results.FunctionsDependencyType;
+import decolib.decompositions.results.OutputSplit;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Finds splits of output functions into functions G and H, for which the parallel decomposition has the fewest blocks of blankets Qv
+ * and Qu. Each split is given by the mask of outputs of function G (the remaining outputs belong to function H). The lower bound of
+ * the number of blocks of Qv and Qu, used to skip splits (see SplitSearch), is computed comparing blocks of blankets I and I x Q with
+ * blocks of G and H.
+ */
+final class OutputSplitSearch
+{
+  static final int MAX_OUTPUTS = 16;
+
+  private final Blanket Iv;
+  private final Blanket Iu;
+  private final boolean sharedI;  // If true, blankets Iv and Iu are the same blanket I of the decomposition.
+  private final Blanket Q;
+  private final List<Blanket> outputs;
+  private final DecompositionContext context;
+
+  /**
+   * @param Iv blanket for binary inputs for function G (may be null)
+   * @param Iu blanket for binary inputs for function H (may be null)
+   * @param sharedI if true, blankets Iv and Iu are the same blanket I of the decomposition
+   * @param Q blanket for input that being the object for encoding through decomposition
+   * @param outputs blankets of output functions (from 2 to MAX_OUTPUTS blankets)
+   * @param context context of computations, which isn't changed (decompositions of splits share the cache in the context created for them)
+   */
+  OutputSplitSearch(Blanket Iv, Blanket Iu, boolean sharedI, Blanket Q, List<Blanket> outputs, DecompositionContext context)
+  {
+    if(outputs.size() < 2 || outputs.size() > MAX_OUTPUTS)
+      throw new IllegalArgumentException(String.format("Number of outputs should be between 2 and %s, given %s", MAX_OUTPUTS, outputs.size()));
+
+    this.Iv = Iv;
+    this.Iu = Iu;
+    this.sharedI = sharedI;
+    this.Q = Q;
+    this.outputs = new ArrayList<>(outputs);
+    this.context = DecompositionContext.createChildWithCache(context);
+  }
+
+  /**
+   * @param resultsNum maximal number of returned results
+   * @return the best splits, ordered by the cost and then by masks of outputs of function G
+   */
+  List<OutputSplit> search(int resultsNum)
+  {
+    return createSearch().search(resultsNum);
+  }
+
+  /**
+   * @return iterator over all splits, in the order of "search(resultsNum)", which decomposes splits lazily (see SplitSearch.iterator)
+   */
+  Iterator<OutputSplit> iterator()
+  {
+    return createSearch().iterator();
+  }
+
+  private SplitSearch<OutputSplit> createSearch()
+  {
+    Blanket IvxQ = Iv != null ? Iv.BxB(Q, false) : null;
+    Blanket IuxQ = sharedI ? IvxQ : Iu != null ? Iu.BxB(Q, false) : null;
+    int full = (1 << outputs.size()) - 1;
+
+    // Split i has the mask i + 1 of outputs of function G (non-empty and not full set of outputs).
+    return new SplitSearch<>(full - 1, split ->
+      {
+        int GBound = lowerBound(Iv, IvxQ, product(split + 1));
+        int HBound = lowerBound(Iu, IuxQ, product(full ^ (split + 1)));
+        return GBound >= 0 && HBound >= 0 ? GBound + HBound : -1;
+      },
+      split -> decompose(split + 1, full ^ (split + 1)),
+      split -> split.cost,
+      Comparator.<OutputSplit>comparingInt(split -> split.cost).thenComparingInt(split -> mask(split.GOutputs)),
+      context);
+  }
+
+  // Method computes the product of output blankets given by the mask.
+  private Blanket product(int mask)
+  {
+    Blanket F = null;
+    for(int o = 0; o < outputs.size(); o++)
+      if((mask & (1 << o)) != 0) F = F == null ? outputs.get(o) : F.BxB(outputs.get(o));
+
+    return F;
+  }
+
+  private static int mask(int[] outputs)
+  {
+    int mask = 0;
+    for(int o : outputs) mask |= 1 << o;
+    return mask;
+  }
+
+  private static int[] outputs(int mask)
+  {
+    return IntStream.range(0, Integer.SIZE).filter(o -> (mask & (1 << o)) != 0).toArray();
+  }
+
+  /**
+   * Method decomposes the function for the split given by the mask of outputs of function G.
+   *
+   * @param GMask mask of outputs of function G
+   * @param HMask mask of outputs of function H
+   * @return split with the decomposition, or null if the decomposition wasn't found (or blankets required by G or H weren't computed)
+   */
+  private OutputSplit decompose(int GMask, int HMask)
+  {
+    Blanket G = product(GMask);
+    Blanket H = product(HMask);
+    DecompositionBlankets decomposition = sharedI ? Decompositions.parallelDecomposition(Iv, Q, G, H, context)
+                                                  : Decompositions.parallelDecomposition(Iv, Iu, Q, G, H, context);
+
+    if(decomposition == null) return null;
+    if(decomposition.dependencyOfG != FunctionsDependencyType.DEPENDS_ON_I && decomposition.Qv == null) return null;
+    if(decomposition.dependencyOfH != FunctionsDependencyType.DEPENDS_ON_I && decomposition.Qu == null) return null;
+
+    OutputSplit split = OutputSplit.create();
+    split.GOutputs = outputs(GMask);
+    split.HOutputs = outputs(HMask);
+    split.cost = (decomposition.Qv != null ? decomposition.Qv.getBlocksCount() : 0) + (decomposition.Qu != null ? decomposition.Qu.getBlocksCount() : 0);
+    split.decomposition = decomposition;
+    return split;
+  }
+
+  /**
+   * Method returns the lower bound of the number of blocks of blanket Qv, computed by the parallel decomposition for function F and
+   * blanket A of binary inputs. The bound is positive only, when Qv has to fulfil the relation A x Qv &lt;= F (neither A &lt;= F, nor
+   * Q &lt;= F). Then terms of a block of A, which pairwise aren't included in any common block of F, have to be placed in different
+   * blocks of Qv (see SplitSearch.getDistinguishedTermsCount).
+   *
+   * @param A blanket for binary inputs (may be null)
+   * @param AxQ product A x Q (may be null, when A is null)
+   * @param F blanket of the function
+   * @return lower bound of the number of blocks of Qv, or -1 when function F doesn't depend on A and Q only (the split is skipped)
+   */
+  private int lowerBound(Blanket A, Blanket AxQ, Blanket F)
+  {
+    if((A != null && A.BleB(F)) || Q.BleB(F)) return 0;
+    if(A == null || !AxQ.BleB(F)) return -1;
+
+    return SplitSearch.getDistinguishedTermsCount(A, F);
+  }
+}
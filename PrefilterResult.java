@@ -0,0 +1,58 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions.results;
+
+/**
+ * A container for the result of the prefilter, which checks cheap necessary conditions of the decomposition before its computation.
+ */
+public class PrefilterResult
+{
+  public boolean passed;                        // Value "true" means that no necessary condition is violated (the decomposition still may not exist).
+  public PrefilterCause cause;                  // The violated condition (null, when the request passed).
+  public int term;                              // The sampled term, for which the relation (I x Q) <= Y isn't fulfilled (-1, when it wasn't found).
+  public int GInputsLowerBound;                 // Lower bound of the number of binary inputs of function G (serial decomposition only).
+  public int HInputsLowerBound;                 // Lower bound of the number of binary inputs of function H, when G fits LUT cell (serial decomposition only).
+
+  private PrefilterResult()
+  {
+    passed = true;
+    cause = null;
+    term = -1;
+  }
+
+  public static PrefilterResult create()
+  {
+    return new PrefilterResult();
+  }
+
+  @Override
+  public String toString()
+  {
+    return "PrefilterResult{" +
+      "passed=" + passed +
+      ", cause=" + cause +
+      ", term=" + term +
+      ", GInputsLowerBound=" + GInputsLowerBound +
+      ", HInputsLowerBound=" + HInputsLowerBound +
+      '}';
+  }
+}
@@ -0,0 +1,93 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions;
+
+import decolib.blankets.Blanket;
+import decolib.blankets.Block;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents blocks of blankets, which are sums of whole blocks of blanket Q, as masks of indexes of blocks of blanket Q. It is used
+ * for blanket Q having up to 64 disjoint blocks by the refinement of the serial decomposition, then the sum, the product and the inclusion
+ * of such blocks are operations on single words. Masks of blocks of the blanket are stored in an array in the same order as blocks.
+ */
+final class QBlockMasks
+{
+  static final int MAX_BLOCKS = 64;
+
+  private final List<Block> QBlocks;
+
+  private QBlockMasks(List<Block> QBlocks)
+  {
+    this.QBlocks = new ArrayList<>(QBlocks);
+  }
+
+  /**
+   * Method creates masks for the given blocks of blanket Q.
+   *
+   * @param QBlocks blocks of blanket Q
+   * @return masks, or null if there are too many blocks or blocks have common terms
+   */
+  static QBlockMasks create(List<Block> QBlocks)
+  {
+    if(QBlocks.size() > MAX_BLOCKS) return null;
+
+    Block union = Block.createFromTerms("", new int[0]);
+    int rank = 0;
+    for(Block block : QBlocks)
+    {
+      union = union.getBlockPlus(block);
+      rank += block.getRank();
+    }
+
+    return union.getRank() == rank ? new QBlockMasks(QBlocks) : null;
+  }
+
+  /**
+   * @return blocks of blanket Q, the block at position i has the mask 1L &lt;&lt; i
+   */
+  List<Block> getBlocks()
+  {
+    return QBlocks;
+  }
+
+  /**
+   * Method returns masks of blocks of the blanket, which blocks are sums of whole blocks of blanket Q.
+   *
+   * @param blanket blanket
+   * @return masks of blocks of the blanket, in the same order as blocks
+   */
+  long[] getMasks(Blanket blanket)
+  {
+    long[] result = new long[blanket.getBlocksCount()];
+    for(int i = 0; i < result.length; i++)
+    {
+      Block block = blanket.getBlocks().get(i);
+      for(int j = 0; j < QBlocks.size(); j++)
+        if(block.hasBlockCommonPart(QBlocks.get(j))) result[i] |= 1L << j;
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,155 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions;
+
+import decolib.blankets.Blanket;
+import decolib.blankets.Block;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Finds blanket Qu having the fewest blocks for the serial decomposition with the given blankets Qv and G. Blocks of Qu are sums of
+ * blocks of blanket Q (having disjoint blocks), such that Qv x Qu = Q (each block of Qu has at most one block of Q from each block of Qv)
+ * and Qu x G &lt;= M. Sets of blocks of Q are represented by masks. The family of sets fulfilling both conditions is closed under
+ * subsets, so it is computed over subsets of growing size (in parallel for the same size), and the fewest blocks are found by
+ * the dynamic programming over subsets, using the maximal sets of the family.
+ */
+final class QuPartitionSolver
+{
+  static final int MAX_BLOCKS = 20;
+
+  private final int blocksCnt;
+  private final long[] QvMasks;
+  private final long[][][] covers;  // covers[i][g] = bits of blocks of M including the common part of block i of Q and block g of G.
+  private final DecompositionContext context;
+
+  /**
+   * @param QBlocks blocks of blanket Q (disjoint, up to MAX_BLOCKS blocks)
+   * @param QvMasks masks of blocks of blanket Qv
+   * @param G blanket G
+   * @param M blanket M
+   * @param context context of computations
+   * @throws IllegalArgumentException when blanket Q has more than MAX_BLOCKS blocks
+   */
+  QuPartitionSolver(List<Block> QBlocks, long[] QvMasks, Blanket G, Blanket M, DecompositionContext context)
+  {
+    if(QBlocks.size() > MAX_BLOCKS) throw new IllegalArgumentException(String.format("Number of blocks should be at most %s, given %s", MAX_BLOCKS, QBlocks.size()));
+
+    this.blocksCnt = QBlocks.size();
+    this.QvMasks = QvMasks;
+    this.context = context;
+
+    List<Block> mBlocks = M.getBlocks();
+    covers = new long[blocksCnt][G.getBlocksCount()][(mBlocks.size() + 63) / 64];
+    for(int i = 0; i < blocksCnt; i++)
+    {
+      for(int g = 0; g < G.getBlocksCount(); g++)
+      {
+        Block common = QBlocks.get(i).getBlockMul(G.getBlocks().get(g));
+        for(int m = 0; m < mBlocks.size(); m++)
+          if(common.isEmpty() || common.getBlockLe(mBlocks.get(m))) covers[i][g][m >>> 6] |= 1L << m;
+      }
+    }
+  }
+
+  /**
+   * @return masks of blocks of blanket Qu, or null if computations were stopped
+   */
+  long[] solve()
+  {
+    boolean[] compatible = new boolean[1 << blocksCnt];
+    compatible[0] = true;
+    for(int size = 1; size <= blocksCnt; size++)
+    {
+      if(context.isStopped()) return null;
+
+      int setSize = size;
+      IntStream.range(1, 1 << blocksCnt).parallel().filter(set -> Integer.bitCount(set) == setSize).forEach(set -> compatible[set] = isCompatible(set, compatible));
+    }
+
+    // Maximal compatible sets including each block of Q.
+    List<List<Integer>> maximalSets = new ArrayList<>();
+    for(int i = 0; i < blocksCnt; i++) maximalSets.add(new ArrayList<>());
+    for(int set = 1; set < 1 << blocksCnt; set++)
+    {
+      if(!compatible[set]) continue;
+
+      boolean maximal = true;
+      for(int i = 0; i < blocksCnt && maximal; i++)
+        if((set & (1 << i)) == 0 && compatible[set | (1 << i)]) maximal = false;
+
+      if(maximal)
+        for(int i = 0; i < blocksCnt; i++)
+          if((set & (1 << i)) != 0) maximalSets.get(i).add(set);
+    }
+
+    // counts[set] = the fewest compatible sets covering the set, the first block of the set is covered by the set chosen[set].
+    byte[] counts = new byte[1 << blocksCnt];
+    int[] chosen = new int[1 << blocksCnt];
+    for(int set = 1; set < 1 << blocksCnt; set++)
+    {
+      if((set & 0xffff) == 0 && context.isStopped()) return null;
+
+      counts[set] = Byte.MAX_VALUE;
+      for(int maximalSet : maximalSets.get(Integer.numberOfTrailingZeros(set)))
+      {
+        int part = maximalSet & set;
+        if(counts[set & ~part] + 1 < counts[set])
+        {
+          counts[set] = (byte)(counts[set & ~part] + 1);
+          chosen[set] = part;
+        }
+      }
+    }
+
+    long[] QuMasks = new long[counts[(1 << blocksCnt) - 1]];
+    for(int set = (1 << blocksCnt) - 1, i = 0; set != 0; set &= ~chosen[set], i++) QuMasks[i] = chosen[set];
+    return QuMasks;
+  }
+
+  // Method checks whether the set of blocks of Q may be summed into a block of Qu. Subsets of the set are already checked.
+  private boolean isCompatible(int set, boolean[] compatible)
+  {
+    int first = Integer.numberOfTrailingZeros(set);
+    if(!compatible[set & ~(1 << first)]) return false;
+
+    for(long QvMask : QvMasks)
+      if(Long.bitCount(QvMask & set) > 1) return false;  // Two blocks of Q from the same block of Qv, then Qv x Qu != Q.
+
+    for(int g = 0; g < covers[first].length; g++)
+    {
+      boolean covered = false;
+      for(int w = 0; w < covers[first][g].length && !covered; w++)
+      {
+        long bits = -1L;
+        for(int rest = set; rest != 0; rest &= rest - 1) bits &= covers[Integer.numberOfTrailingZeros(rest)][g][w];
+        covered = bits != 0;
+      }
+
+      if(!covered) return false;  // The common part of the sum of blocks and the block of G is not included in any block of M.
+    }
+
+    return true;
+  }
+}
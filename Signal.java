@@ -114,22 +114,51 @@ public class Signal
 
     if(signalValueType == BINARY)
     {
-      blanket = Blanket.create("0", "1");
+      // Terms are collected in increasing order, so each block is filled at once.
+      int[] terms0 = new int[values.size()];
+      int[] terms1 = new int[values.size()];
+      int terms0Cnt = 0;
+      int terms1Cnt = 0;
+
       for(int i = 0; i < values.size(); i++)
       {
-        if(values.get(i).charAt(0) == '0' || values.get(i).charAt(0) == '-') blanket.addTerms("0", i + 1);
-        if(values.get(i).charAt(0) == '1' || values.get(i).charAt(0) == '-') blanket.addTerms("1", i + 1);
+        if(values.get(i).charAt(0) == '0' || values.get(i).charAt(0) == '-') terms0[terms0Cnt++] = i + 1;
+        if(values.get(i).charAt(0) == '1' || values.get(i).charAt(0) == '-') terms1[terms1Cnt++] = i + 1;
       }
+
+      blanket = Blanket.create("0", "1");
+      blanket.addTerms("0", Arrays.copyOf(terms0, terms0Cnt));
+      blanket.addTerms("1", Arrays.copyOf(terms1, terms1Cnt));
     }
 
     if(signalValueType == MULTIPLE_VALUED)
     {
       List<String> valueList = new ArrayList<>(valueNames);
 
+      Map<String,Integer> valuePositions = new HashMap<>();
       List<String> blockNames = new ArrayList<>();
-      for(String value : valueList) blockNames.add("B(" + value + ")");
+      for(String value : valueList)
+      {
+        valuePositions.put(value, blockNames.size());
+        blockNames.add("B(" + value + ")");
+      }
 
-      blanket = Blanket.create(blockNames);
+      // Terms are collected in increasing order, so each block is filled at once. The first pass counts terms of blocks.
+      int[] termsCnt = new int[valueList.size()];
+      for(String value : values)
+      {
+        if(value.length() > 1 || value.charAt(0) != '-')
+          termsCnt[valuePositions.get(value)]++;
+        else
+          for(int pos = 0; pos < valueList.size(); pos++) termsCnt[pos]++;
+      }
+
+      int[][] terms = new int[valueList.size()][];
+      for(int pos = 0; pos < valueList.size(); pos++)
+      {
+        terms[pos] = new int[termsCnt[pos]];
+        termsCnt[pos] = 0;
+      }
 
       for(int i = 0; i < values.size(); i++)
       {
@@ -137,15 +166,20 @@ public class Signal
         if(value.length() > 1 || value.charAt(0) != '-')
         {
           // Multiple-values.
-          blanket.addTerms("B(" + value + ")", i + 1);
+          int pos = valuePositions.get(value);
+          terms[pos][termsCnt[pos]++] = i + 1;
         }
         else
         {
           // Don't care value (-).
-          for(String valueListItem : valueList)
-            blanket.addTerms("B(" + valueListItem + ")", i + 1);
+          for(int pos = 0; pos < valueList.size(); pos++)
+            terms[pos][termsCnt[pos]++] = i + 1;
         }
-       }
+      }
+
+      blanket = Blanket.create(blockNames);
+      for(int pos = 0; pos < valueList.size(); pos++)
+        blanket.addTerms(blockNames.get(pos), terms[pos]);
     }
   }
 
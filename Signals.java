@@ -118,7 +118,7 @@ public class Signals
    */
   public static List<Signal> getSignalGroups(List<Signal> signals, SignalType signalType, int ... signalNumbers)
   {
-    Map<Integer,String> terms = new HashMap<>();
+    String[] terms = new String[signals.get(0).getValues().size() + 1];  // Terms are numbered from 1, thus the position 0 is not used.
 
     // Gets signals of given type.
     List<Signal> signalsInternal = new ArrayList<>();
@@ -191,10 +191,10 @@ public class Signals
         groupTermExplication = groupTermExplicationBuilder.toString();
       }
 
-      terms.put(i + 1, groupTermExplication);
+      terms[i + 1] = groupTermExplication;
     }
 
-    if(terms.size() > 0)
+    if(terms.length > 1)
     {
       // Prepare result signal.
       StringBuilder groupName = new StringBuilder();
@@ -205,27 +205,27 @@ public class Signals
       Blanket blanket = Blanket.empty();
 
       // Post-processing for terms.
-      for(int i = 1; i <= terms.size(); i++) blanket.addBlock("B" + i);
+      for(int i = 1; i < terms.length; i++) blanket.addBlock("B" + i);
 
-      for(int i = 1; i <= terms.size(); i++)
+      for(int i = 1; i < terms.length; i++)
       {
-        Matcher matcher = termPattern.matcher(terms.get(i));
+        Matcher matcher = termPattern.matcher(terms[i]);
         while(matcher.find())
         {
-          for(int j = i + 1; j <= terms.size(); j++)
-            if(terms.get(j).contains(matcher.group()))
+          for(int j = i + 1; j < terms.length; j++)
+            if(terms[j].contains(matcher.group()))
             {
-              blanket.addTerms("B" + j, i);
-              terms.put(i, terms.get(i).replace(matcher.group(), ""));
+              blanket.addTerm("B" + j, i);
+              terms[i] = terms[i].replace(matcher.group(), "");
             }
         }
       }
 
-      for(int i = 1; i <= terms.size(); i++)
-        if(!terms.get(i).isEmpty())
+      for(int i = 1; i < terms.length; i++)
+        if(!terms[i].isEmpty())
         {
-          blanket.addTerms("B" + i, i);
-          resultSignal.addValue(terms.get(i));
+          blanket.addTerm("B" + i, i);
+          resultSignal.addValue(terms[i]);
         }
         else
           blanket.deleteBlock("B" + i);
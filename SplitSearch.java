@@ -0,0 +1,247 @@
+// Copyright (c) 2021 Mariusz Wiśniewski
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package decolib.decompositions;
+
+import decolib.blankets.Blanket;
+import decolib.blankets.Block;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Search of the best splits (of inputs or outputs of the function) for decompositions, which uses lower bounds of costs of splits.
+ * At first, the lower bound is computed for each split (in parallel). Then splits are decomposed in the order of bounds (in parallel),
+ * and the split is skipped, when its bound is greater than the cost of the worst of the best results found so far - thus the ranking
+ * of results doesn't depend on the order of computations. Results may also be computed lazily, by the iterator returning them in the same
+ * order. Decompositions share the cache of products of blankets of the given context.
+ */
+final class SplitSearch<T>
+{
+  private final int splitsCnt;
+  private final IntUnaryOperator bound;
+  private final IntFunction<T> decompose;
+  private final ToIntFunction<T> cost;
+  private final Comparator<T> order;
+  private final DecompositionContext context;
+
+  /**
+   * @param splitsCnt number of splits, splits are given by numbers 0 .. splitsCnt - 1
+   * @param bound function computing the lower bound of the cost of the split, or -1 when the split should be skipped
+   * @param decompose function computing the result for the split, or null when the decomposition wasn't found
+   * @param cost cost of the result
+   * @param order order of results, the cost should be compared as the first one
+   * @param context context of computations
+   */
+  SplitSearch(int splitsCnt, IntUnaryOperator bound, IntFunction<T> decompose, ToIntFunction<T> cost, Comparator<T> order, DecompositionContext context)
+  {
+    this.splitsCnt = splitsCnt;
+    this.bound = bound;
+    this.decompose = decompose;
+    this.cost = cost;
+    this.order = order;
+    this.context = context;
+  }
+
+  /**
+   * @param resultsNum maximal number of returned results
+   * @return the best results, in the given order
+   * @throws IllegalArgumentException when resultsNum is less than 1
+   */
+  List<T> search(int resultsNum)
+  {
+    if(resultsNum < 1) throw new IllegalArgumentException(String.format("Number of results should be positive, given %s", resultsNum));
+
+    int[] bounds = computeBounds();
+    List<Integer> splits = sortSplits(bounds);
+
+    // Costs of the best results found so far, the worst of them is the head of the queue.
+    PriorityQueue<Integer> bestCosts = new PriorityQueue<>(Comparator.reverseOrder());
+    List<T> results = new ArrayList<>();
+    AtomicInteger next = new AtomicInteger();
+    AtomicInteger done = new AtomicInteger();
+
+    // Workers take splits in the order of bounds, so the most promising splits are decomposed first.
+    IntStream.range(0, Runtime.getRuntime().availableProcessors()).parallel().forEach(worker ->
+    {
+      int i;
+      while((i = next.getAndIncrement()) < splits.size())
+      {
+        if(context.isStopped())
+        {
+          context.markPartial();
+          return;
+        }
+
+        int split = splits.get(i);
+        synchronized(bestCosts)
+        {
+          if(bestCosts.size() == resultsNum && bounds[split] > bestCosts.peek()) return;  // Bounds of the next splits aren't lower.
+        }
+
+        T result = decompose.apply(split);
+        synchronized(bestCosts)
+        {
+          if(result != null && (bestCosts.size() < resultsNum || cost.applyAsInt(result) <= bestCosts.peek()))
+          {
+            results.add(result);
+            bestCosts.add(cost.applyAsInt(result));
+            if(bestCosts.size() > resultsNum) bestCosts.poll();
+          }
+
+          context.progress(done.incrementAndGet(), splits.size());
+        }
+      }
+    });
+
+    return results.stream().sorted(order).limit(resultsNum).collect(Collectors.toList());
+  }
+
+  /**
+   * Method returns the iterator over results of all splits in the given order, which are computed lazily: splits are decomposed one by one
+   * in the order of bounds, and the best result found so far is returned, when its cost is lower than the bound of the next split. Thus
+   * the first n results are the same as the results of "search(n)", but only splits needed for them are decomposed. Bounds are computed
+   * (in parallel), when the first result is requested. When the context is stopped, the iterator returns results found so far.
+   *
+   * @return iterator over results
+   */
+  Iterator<T> iterator()
+  {
+    return new SplitIterator();
+  }
+
+  // Method computes lower bounds of costs of all splits (in parallel).
+  private int[] computeBounds()
+  {
+    int[] bounds = new int[splitsCnt];
+    IntStream.range(0, splitsCnt).parallel().forEach(split -> bounds[split] = context.isStopped() ? 0 : bound.applyAsInt(split));
+    return bounds;
+  }
+
+  // Method returns splits, which aren't skipped, in the order of bounds.
+  private List<Integer> sortSplits(int[] bounds)
+  {
+    return IntStream.range(0, splitsCnt).filter(split -> bounds[split] >= 0).boxed()
+      .sorted(Comparator.<Integer>comparingInt(split -> bounds[split]).thenComparingInt(split -> split))
+      .collect(Collectors.toList());
+  }
+
+  // Iterator over results of splits, decomposing splits when the next result is requested.
+  private final class SplitIterator implements Iterator<T>
+  {
+    private final PriorityQueue<T> found = new PriorityQueue<>(order);  // Results found, but not returned yet.
+    private int[] bounds;
+    private List<Integer> splits;
+    private int next;
+
+    @Override
+    public boolean hasNext()
+    {
+      if(splits == null)
+      {
+        bounds = computeBounds();
+        splits = sortSplits(bounds);
+      }
+
+      // The best result found is returned, when results of the next splits aren't better (their costs aren't lower than bounds).
+      while(next < splits.size() && (found.isEmpty() || cost.applyAsInt(found.peek()) >= bounds[splits.get(next)]))
+      {
+        if(context.isStopped())
+        {
+          context.markPartial();
+          next = splits.size();
+          break;
+        }
+
+        T result = decompose.apply(splits.get(next++));
+        if(result != null) found.add(result);
+        context.progress(next, splits.size());
+      }
+
+      return !found.isEmpty();
+    }
+
+    @Override
+    public T next()
+    {
+      if(!hasNext()) throw new NoSuchElementException();
+
+      return found.poll();
+    }
+  }
+
+  /**
+   * Method returns the number of terms of a block of blanket A, which pairwise aren't included in any common block of blanket F (the greatest
+   * number found by the greedy choice of terms, over blocks of A). Each blanket R fulfilling the relation A x R &lt;= F has at least such
+   * number of blocks, as these terms have to be placed in different blocks of R.
+   *
+   * @param A blanket, the first parameter (may be null, then it is treated as the blanket of the single block of all terms of F)
+   * @param F blanket, the third parameter
+   * @return number of terms, being the lower bound of the number of blocks of blanket R
+   */
+  static int getDistinguishedTermsCount(Blanket A, Blanket F)
+  {
+    List<Block> fBlocks = F.getBlocks();
+    int maxTerm = fBlocks.stream().mapToInt(Block::getMaxTerm).max().orElse(-1);
+    BitSet[] covers = new BitSet[maxTerm + 1];  // covers[t] = blocks of F including term t.
+    for(int f = 0; f < fBlocks.size(); f++)
+    {
+      int block = f;
+      fBlocks.get(f).forEachTerm(term ->
+      {
+        if(covers[term] == null) covers[term] = new BitSet();
+        covers[term].set(block);
+      });
+    }
+
+    int count = 0;
+    for(Block blockA : A != null ? A.getBlocks() : Collections.singletonList(Block.createFromRanges("", 0, maxTerm)))
+    {
+      BitSet used = new BitSet();  // Blocks of F including chosen terms of blockA.
+      int[] chosen = {0};
+      blockA.forEachTerm(term ->
+      {
+        BitSet cover = term < covers.length ? covers[term] : null;
+        if(cover != null && !cover.intersects(used))
+        {
+          used.or(cover);
+          chosen[0]++;
+        }
+      });
+
+      count = Math.max(count, chosen[0]);
+    }
+
+    return count;
+  }
+}